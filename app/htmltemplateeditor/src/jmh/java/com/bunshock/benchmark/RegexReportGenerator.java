@@ -0,0 +1,55 @@
+package com.bunshock.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The original regex-based ReportGenerator, kept as a baseline for the compiled engine.
+ */
+final class RegexReportGenerator {
+
+    String processSimpleFields(String html, Map<String, String> data) {
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue() == null ? "" : entry.getValue();
+            html = html.replaceAll("(?i)\\{\\{" + key + "\\}\\}", Matcher.quoteReplacement(value));
+        }
+        return html;
+    }
+
+    String processRepeatedItems(String html, List<Map<String, String>> items) {
+        Pattern blockPattern = Pattern.compile("(?i)\\{\\{#ITEMS\\}\\}(.*?)\\{\\{/ITEMS\\}\\}", Pattern.DOTALL);
+        Matcher blockMatcher = blockPattern.matcher(html);
+
+        if (blockMatcher.find()) {
+            String itemTemplate = blockMatcher.group(1);
+            StringBuilder allItemsHtml = new StringBuilder();
+
+            for (Map<String, String> itemData : items) {
+                String rowHtml = itemTemplate;
+
+                for (Map.Entry<String, String> entry : itemData.entrySet()) {
+                    String key = entry.getKey();
+                    String value = entry.getValue();
+                    if (value == null || value.trim().isEmpty()) {
+                        String removeRegex = "(?is)<(div|p|span|li)[^>]*>(?:(?!<\\/\\1>).)*?\\{\\{" + key + "\\}\\}.*?<\\/\\1>";
+                        rowHtml = rowHtml.replaceAll(removeRegex, "");
+                        rowHtml = rowHtml.replaceAll("(?i)\\{\\{" + key + "\\}\\}", "");
+                    } else {
+                        rowHtml = rowHtml.replaceAll("(?i)\\{\\{" + key + "\\}\\}", Matcher.quoteReplacement(value));
+                    }
+                }
+                rowHtml = rowHtml.replaceAll("(?m)^\\s+$", "");
+                allItemsHtml.append(rowHtml);
+            }
+
+            html = html.substring(0, blockMatcher.start()) +
+                   allItemsHtml.toString() +
+                   html.substring(blockMatcher.end());
+        }
+
+        return html;
+    }
+}
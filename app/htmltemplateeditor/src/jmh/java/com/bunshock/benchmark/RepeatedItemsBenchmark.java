@@ -0,0 +1,73 @@
+package com.bunshock.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bunshock.service.CompiledTemplate;
+import com.bunshock.service.ReportGenerator;
+
+/**
+ * {{#ITEMS}} expansion for 1 to 5,000 rows with different shares of empty cells.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepeatedItemsBenchmark {
+
+    @Param({ "5120", "2097152" })
+    public int templateBytes;
+
+    @Param({ "1", "300", "5000" })
+    public int rows;
+
+    @Param({ "0.0", "0.3", "0.8" })
+    public double emptyRatio;
+
+    private String html;
+    private CompiledTemplate compiled;
+    private List<Map<String, String>> items;
+
+    private final ReportGenerator generator = new ReportGenerator();
+    private final RegexReportGenerator regex = new RegexReportGenerator();
+
+    @Setup
+    public void setup() {
+        html = TemplateFixtures.template(templateBytes, 0);
+        compiled = CompiledTemplate.compile(html);
+        items = TemplateFixtures.items(rows, emptyRatio, 42L);
+    }
+
+    /** String API: parses the template and analyzes the block on every call. */
+    @Benchmark
+    public String processRepeatedItems() {
+        return generator.processRepeatedItems(html, items);
+    }
+
+    /** What handlePrint does: block analysis is cached with the compiled template. */
+    @Benchmark
+    public String renderCompiled() {
+        return generator.render(compiled, Collections.emptyMap(), items);
+    }
+
+    @Benchmark
+    public String regexBaseline() {
+        return regex.processRepeatedItems(html, items);
+    }
+}
@@ -0,0 +1,68 @@
+package com.bunshock.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bunshock.service.CompiledTemplate;
+import com.bunshock.service.ReportGenerator;
+
+/**
+ * Simple field replacement ({{KEY}}) over templates from 5 KB to 2 MB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimpleFieldsBenchmark {
+
+    @Param({ "5120", "102400", "2097152" })
+    public int templateBytes;
+
+    @Param({ "40" })
+    public int simpleFields;
+
+    private String html;
+    private CompiledTemplate compiled;
+    private Map<String, String> data;
+
+    private final ReportGenerator generator = new ReportGenerator();
+    private final RegexReportGenerator regex = new RegexReportGenerator();
+
+    @Setup
+    public void setup() {
+        html = TemplateFixtures.template(templateBytes, simpleFields);
+        compiled = CompiledTemplate.compile(html);
+        data = TemplateFixtures.simpleData(simpleFields);
+    }
+
+    /** String API: parses the template on every call. */
+    @Benchmark
+    public String processSimpleFields() {
+        return generator.processSimpleFields(html, data);
+    }
+
+    /** What handlePrint does: the template comes compiled from TemplateCache. */
+    @Benchmark
+    public String renderCompiled() {
+        return generator.render(compiled, data, null);
+    }
+
+    @Benchmark
+    public String regexBaseline() {
+        return regex.processSimpleFields(html, data);
+    }
+}
@@ -0,0 +1,79 @@
+package com.bunshock.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic delivery-note templates and data of a given size.
+ */
+final class TemplateFixtures {
+
+    static final String[] ITEM_COLUMNS = { "TIPO", "MARCA", "MODELO", "SERIE", "CANTIDAD", "OBSERVACIONES" };
+
+    private static final String FILLER =
+        "    <p class=\"legal\">Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod " +
+        "tempor incididunt ut labore et dolore magna aliqua.</p>\n";
+
+    private TemplateFixtures() {}
+
+    /**
+     * A template of roughly targetBytes, with simpleFields placeholders spread over it
+     * and one {{#ITEMS}} block.
+     */
+    static String template(int targetBytes, int simpleFields) {
+        StringBuilder html = new StringBuilder(targetBytes + 4096);
+        html.append("<html>\n<head>\n    <title>{{TEMPLATE_NAME}}</title>\n</head>\n<body>\n");
+
+        for (int i = 0; i < simpleFields; i++) {
+            html.append("    <div class=\"field\"><b>Campo ").append(i).append(":</b> {{CAMPO_").append(i).append("}}</div>\n");
+        }
+
+        html.append("    <table class=\"items\">\n    {{#ITEMS}}\n        <tr><td>\n");
+        for (String column : ITEM_COLUMNS) {
+            html.append("            <div class=\"").append(column.toLowerCase()).append("\"><b>")
+                .append(column).append(":</b> <span>{{").append(column).append("}}</span></div>\n");
+        }
+        html.append("        </td></tr>\n    {{/ITEMS}}\n    </table>\n");
+
+        // Pad with body text, repeating a few placeholders so they are not all in the header
+        int field = 0;
+        while (html.length() < targetBytes - 32) {
+            html.append(FILLER);
+            if (simpleFields > 0 && html.length() % 7 == 0) {
+                html.append("    <p>{{CAMPO_").append(field++ % simpleFields).append("}}</p>\n");
+            }
+        }
+
+        html.append("</body>\n</html>\n");
+        return html.toString();
+    }
+
+    static Map<String, String> simpleData(int simpleFields) {
+        Map<String, String> data = new HashMap<>();
+        data.put("TEMPLATE_NAME", "Remito de entrega");
+        for (int i = 0; i < simpleFields; i++) {
+            data.put("CAMPO_" + i, "Valor del campo " + i);
+        }
+        return data;
+    }
+
+    /**
+     * Rows shaped like the ones DynamicTableBuilder produces, with the given share of empty cells.
+     */
+    static List<Map<String, String>> items(int rows, double emptyRatio, long seed) {
+        Random random = new Random(seed);
+        List<Map<String, String>> items = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            Map<String, String> row = new HashMap<>();
+            for (String column : ITEM_COLUMNS) {
+                boolean empty = random.nextDouble() < emptyRatio;
+                row.put(column, empty ? "" : column.toLowerCase() + "-" + r);
+            }
+            items.add(row);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,170 @@
+package com.bunshock;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.bunshock.model.AppProfile;
+import com.bunshock.model.BatchRecord;
+import com.bunshock.model.TableConfig;
+import com.bunshock.service.BatchDataReader;
+import com.bunshock.service.BatchRenderService;
+import com.bunshock.service.BatchRenderService.RenderJob;
+import com.bunshock.service.ProfileService;
+
+/**
+ * Headless entry point for bulk runs. Renders one HTML file per record without starting JavaFX.
+ * --threads is the number of documents rendered at once (default: number of cores).
+ * --format pdf writes PDFs instead of HTML (no display or printer needed).
+ *
+ * Usage: java -cp htmltemplateeditor.jar com.bunshock.BatchLauncher
+ *            --profile perfil.json --data datos.csv|datos.jsonl --out carpeta [--threads N] [--format html|pdf]
+ */
+public class BatchLauncher {
+
+    public static void main(String[] args) {
+        Map<String, String> options = parseArgs(args);
+        if (options == null) {
+            printUsage();
+            System.exit(2);
+        }
+
+        try {
+            String format = options.getOrDefault("format", "html").toLowerCase();
+            if (!format.equals("html") && !format.equals("pdf")) {
+                printUsage();
+                System.exit(2);
+            }
+            int failed = run(new File(options.get("profile")), new File(options.get("data")),
+                    Path.of(options.get("out")),
+                    Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                    format);
+            System.exit(failed == 0 ? 0 : 1);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Renders every record and prints a summary. Returns the number of failed documents.
+     */
+    public static int run(File profileFile, File dataFile, Path outDir, int concurrency) throws Exception {
+        return run(profileFile, dataFile, outDir, concurrency, "html");
+    }
+
+    /**
+     * Same as above; format is "html" or "pdf" (the extension of the generated files).
+     */
+    public static int run(File profileFile, File dataFile, Path outDir, int concurrency, String format) throws Exception {
+        // 1. Profile (the template is resolved and compiled once by BatchRenderService)
+        AppProfile profile = ProfileService.loadProfile(profileFile);
+
+        // 2. Data
+        String itemTable = itemTableName(profile);
+        List<BatchRecord> records = BatchDataReader.read(dataFile, itemTable == null ? "ITEMS" : itemTable);
+        Files.createDirectories(outDir);
+
+        // 3. Render on virtual threads, at most 'concurrency' documents at a time
+        int total = records.size();
+        long[] latencies = new long[total];
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "batch-progress");
+            t.setDaemon(true);
+            return t;
+        });
+        progress.scheduleAtFixedRate(() -> System.out.printf("\rProgreso: %d/%d", done.get(), total), 1, 1, TimeUnit.SECONDS);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> running = new ArrayList<>(total);
+        try (BatchRenderService service = new BatchRenderService(concurrency)) {
+            for (int i = 0; i < total; i++) {
+                final int index = i;
+                BatchRecord record = records.get(index);
+                RenderJob job = new RenderJob(profile, profileFile, record.getFields(),
+                        itemTable == null ? null : record.getItems(),
+                        outDir.resolve(fileName(index, record.getKey(), format)), record.getKey());
+
+                running.add(service.submit(job).thenAccept(result -> {
+                    latencies[index] = result.getNanos();
+                    if (!result.isSuccess()) {
+                        failed.incrementAndGet();
+                        System.err.println("\nError en registro " + record.getKey() + ": " + result.getError().getMessage());
+                    }
+                    done.incrementAndGet();
+                }));
+            }
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+        }
+        long elapsed = System.nanoTime() - start;
+        progress.shutdownNow();
+
+        printSummary(total, failed.get(), elapsed, latencies, concurrency);
+        return failed.get();
+    }
+
+    // Same rule as MainView: the "ITEMS" table, or the first one if it was renamed
+    private static String itemTableName(AppProfile profile) {
+        if (profile.getTables() == null || profile.getTables().isEmpty()) return null;
+        for (TableConfig table : profile.getTables()) {
+            if ("ITEMS".equals(table.getTableName())) return table.getTableName();
+        }
+        return profile.getTables().get(0).getTableName();
+    }
+
+    static String fileName(int index, String key, String extension) {
+        String safeKey = key == null ? "" : key.replaceAll("[^A-Za-z0-9._-]", "_");
+        return String.format("%05d_%s.%s", index + 1, safeKey, extension);
+    }
+
+    private static void printSummary(int total, int failed, long elapsedNanos, long[] latencies, int concurrency) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        double seconds = elapsedNanos / 1e9;
+
+        System.out.printf("\rProgreso: %d/%d%n", total, total);
+        System.out.println("--- Resumen ---");
+        System.out.printf("Documentos: %d (errores: %d), concurrencia: %d%n", total, failed, concurrency);
+        System.out.printf("Tiempo total: %.2f s, rendimiento: %.1f docs/s%n", seconds, seconds > 0 ? total / seconds : 0.0);
+        if (total > 0) {
+            System.out.printf("Latencia (ms): p50 %.2f | p95 %.2f | p99 %.2f | max %.2f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    // null when the arguments are incomplete or malformed
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) return null;
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        if (args.length % 2 != 0) return null;
+        if (!options.containsKey("profile") || !options.containsKey("data") || !options.containsKey("out")) return null;
+        return options;
+    }
+
+    private static void printUsage() {
+        System.err.println("Uso: java -cp htmltemplateeditor.jar com.bunshock.BatchLauncher "
+                + "--profile perfil.json --data datos.csv|datos.jsonl --out carpeta [--threads N] [--format html|pdf]");
+    }
+}
@@ -1,6 +1,11 @@
 package com.bunshock;
 
+import java.nio.file.Paths;
+
+import com.bunshock.config.AppConfig;
+import com.bunshock.service.Metrics;
 import com.bunshock.service.OptionsManager;
+import com.bunshock.service.TemplateCache;
 import com.bunshock.ui.MainView;
 
 import javafx.application.Application;
@@ -12,10 +17,20 @@ public class ReportGeneratorApp extends Application {
     public void start(Stage stage) {
         // Load options early to prevent race conditions
         OptionsManager.getInstance();
+        // Templates are kept in memory; changes on the share are picked up in the background
+        TemplateCache.getInstance().startWatching(AppConfig.getTemplatePollIntervalSeconds());
+        // Render/print/sync times go to a local file (and JMX) to explain slow prints
+        Metrics.getInstance().startReporting(Paths.get(AppConfig.getMetricsFileName()), AppConfig.getMetricsIntervalSeconds());
         // Create the view. It will handle loading saved profiles itself.
         new MainView(stage).show();
     }
 
+    @Override
+    public void stop() {
+        // Options are saved in the background; write whatever is still queued
+        OptionsManager.getInstance().flush();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -4,6 +4,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.Properties;
 
 public class AppConfig {
@@ -42,6 +44,43 @@ public class AppConfig {
         return properties.getProperty("options.file.name", "options.json");
     }
     
+    public static long getSyncIntervalSeconds() {
+        return Long.parseLong(properties.getProperty("options.sync.interval.seconds", "60").trim());
+    }
+
+    /**
+     * Name of this workstation in shared files (e.g. its options journal). Defaults to the host name.
+     */
+    public static String getClientId() {
+        String id = properties.getProperty("client.id");
+        if (id == null || id.isBlank()) {
+            try {
+                id = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                id = System.getProperty("user.name", "cliente");
+            }
+        }
+        return id.trim().replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    /**
+     * How often cached templates are checked against the share, for mounts without change events.
+     */
+    public static long getTemplatePollIntervalSeconds() {
+        return Long.parseLong(properties.getProperty("templates.poll.interval.seconds", "5").trim());
+    }
+
+    /**
+     * Local CSV file the metrics (render, print and sync times) are appended to.
+     */
+    public static String getMetricsFileName() {
+        return properties.getProperty("metrics.file.name", "metrics.csv");
+    }
+
+    public static long getMetricsIntervalSeconds() {
+        return Long.parseLong(properties.getProperty("metrics.interval.seconds", "60").trim());
+    }
+
     public static String getTemplatesFolderName() {
         return properties.getProperty("templates.folder.name", "templates/");
     }
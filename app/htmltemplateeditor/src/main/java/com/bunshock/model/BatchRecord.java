@@ -0,0 +1,33 @@
+package com.bunshock.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One document of a batch run: the simple fields plus the rows of the item table.
+ */
+public class BatchRecord {
+    private final String key;
+    private final Map<String, String> fields = new LinkedHashMap<>();
+    private final List<Map<String, String>> items = new ArrayList<>();
+
+    public BatchRecord(String key) {
+        this.key = key;
+    }
+
+    // Getters
+
+    public String getKey() {
+        return key;
+    }
+
+    public Map<String, String> getFields() {
+        return fields;
+    }
+
+    public List<Map<String, String>> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,109 @@
+package com.bunshock.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An enabledIf condition compiled once per profile: hash-set lookups instead of scanning
+ * the allowed values on every cell update.
+ *
+ * A condition matches when its tag has one of its values (if it names a tag), every
+ * condition in "all" matches and at least one in "any" matches (if given), e.g.
+ * {"all": [{"tag": "TIPO", "values": ["Servicio"]}, {"any": [...]}]}.
+ */
+public abstract class EnablementRule {
+    /** No condition: always enabled. */
+    public static final EnablementRule ALWAYS = new EnablementRule(Collections.emptySet()) {
+        @Override
+        public boolean test(Map<String, String> row) {
+            return true;
+        }
+    };
+
+    private final Set<String> controllingTags;
+
+    private EnablementRule(Set<String> controllingTags) {
+        this.controllingTags = controllingTags;
+    }
+
+    /**
+     * Whether the field is enabled for the given row (tag -> value).
+     */
+    public abstract boolean test(Map<String, String> row);
+
+    /**
+     * Tags whose values decide the result; the rule needs re-checking only when one of them changes.
+     */
+    public Set<String> getControllingTags() {
+        return controllingTags;
+    }
+
+    public static EnablementRule compile(FieldConfig.ConditionConfig condition) {
+        if (condition == null) return ALWAYS;
+
+        List<EnablementRule> parts = new ArrayList<>();
+        if (condition.tag != null) {
+            parts.add(new Match(condition.tag, condition.values == null ? Collections.emptySet() : new HashSet<>(condition.values)));
+        }
+        if (condition.all != null && !condition.all.isEmpty()) {
+            parts.add(combine(condition.all, true));
+        }
+        if (condition.any != null && !condition.any.isEmpty()) {
+            parts.add(combine(condition.any, false));
+        }
+        if (parts.isEmpty()) return ALWAYS;
+        return parts.size() == 1 ? parts.get(0) : new Combined(parts, true);
+    }
+
+    private static EnablementRule combine(List<FieldConfig.ConditionConfig> conditions, boolean all) {
+        List<EnablementRule> parts = new ArrayList<>(conditions.size());
+        for (FieldConfig.ConditionConfig condition : conditions) parts.add(compile(condition));
+        return parts.size() == 1 ? parts.get(0) : new Combined(parts, all);
+    }
+
+    private static Set<String> tagsOf(List<EnablementRule> parts) {
+        Set<String> tags = new LinkedHashSet<>();
+        for (EnablementRule part : parts) tags.addAll(part.controllingTags);
+        return Collections.unmodifiableSet(tags);
+    }
+
+    private static final class Match extends EnablementRule {
+        private final String tag;
+        private final Set<String> values;
+
+        Match(String tag, Set<String> values) {
+            super(Collections.singleton(tag));
+            this.tag = tag;
+            this.values = values;
+        }
+
+        @Override
+        public boolean test(Map<String, String> row) {
+            return values.contains(row.getOrDefault(tag, ""));
+        }
+    }
+
+    private static final class Combined extends EnablementRule {
+        private final EnablementRule[] parts;
+        private final boolean all; // AND, otherwise OR
+
+        Combined(List<EnablementRule> parts, boolean all) {
+            super(tagsOf(parts));
+            this.parts = parts.toArray(new EnablementRule[0]);
+            this.all = all;
+        }
+
+        @Override
+        public boolean test(Map<String, String> row) {
+            for (EnablementRule part : parts) {
+                if (part.test(row) != all) return !all;
+            }
+            return all;
+        }
+    }
+}
@@ -7,6 +7,7 @@ public class FieldConfig {
     private String label;   // e.g., "Name"
     private String type;    // e.g., "TEXT", "DATE"
     private ConditionConfig enabledIf;
+    private transient EnablementRule enabledRule; // Compiled enabledIf, not part of the JSON
 
     public FieldConfig(String tag, String label, String type) {
         this.tag = tag;
@@ -46,11 +47,22 @@ public class FieldConfig {
 
     public void setEnabledIf(ConditionConfig enabledIf) {
         this.enabledIf = enabledIf;
+        this.enabledRule = null;
+    }
+
+    /**
+     * The enabledIf condition, compiled on first use (profiles compile it when loaded).
+     */
+    public EnablementRule getEnabledRule() {
+        if (enabledRule == null) enabledRule = EnablementRule.compile(enabledIf);
+        return enabledRule;
     }
 
     // Inner class for the JSON structure
     public static class ConditionConfig {
         public String tag;
         public List<String> values;
+        public List<ConditionConfig> all; // Every one must match (AND)
+        public List<ConditionConfig> any; // At least one must match (OR)
     }
 }
@@ -0,0 +1,56 @@
+package com.bunshock.model;
+
+import java.io.File;
+
+/**
+ * What the profile selector needs from a profile file (name, template, file stamp),
+ * without its fields and tables. The full {@link AppProfile} is read when it is selected.
+ */
+public class ProfileSummary {
+    private String path;
+    private String profileName;
+    private String templatePath;
+    private long lastModified;
+    private long size;
+
+    public ProfileSummary() {}
+
+    public ProfileSummary(String path, String profileName, String templatePath, long lastModified, long size) {
+        this.path = path;
+        this.profileName = profileName;
+        this.templatePath = templatePath;
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    // Getters
+
+    public String getPath() {
+        return path;
+    }
+
+    public File getFile() {
+        return new File(path);
+    }
+
+    public String getProfileName() {
+        return profileName;
+    }
+
+    public String getTemplatePath() {
+        return templatePath;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return profileName != null ? profileName : "<Unnamed Profile>";
+    }
+}
@@ -0,0 +1,236 @@
+package com.bunshock.service;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bunshock.model.BatchRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads batch input for headless report generation.
+ *
+ * JSONL: one document per line, e.g.
+ * {"NOMBRE": "Juan", "FECHA": "01/02/2024", "ITEMS": [{"BRAND": "Acme", "MODEL": "X1"}]}
+ *
+ * JSON: an array of those documents, in any layout. A .json file that does not start with
+ * an array is read as JSONL.
+ *
+ * CSV (',' or ';' separated, with a header): one line per item row.
+ * Consecutive lines with the same value in the first column form one document.
+ * Columns named "ITEMS.TAG" are item cells, all others are simple fields taken from the first line.
+ */
+public class BatchDataReader {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    public static List<BatchRecord> read(File file, String itemTable) throws IOException {
+        String name = file.getName().toLowerCase();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            if (name.endsWith(".json")) {
+                return readJson(reader, itemTable);
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return readJsonLines(reader, itemTable);
+            }
+            return readCsv(reader, itemTable);
+        }
+    }
+
+    // --- JSON ---
+
+    static List<BatchRecord> readJson(BufferedReader reader, String itemTable) throws IOException {
+        StringWriter text = new StringWriter();
+        reader.transferTo(text);
+        String json = text.toString();
+
+        int first = 0;
+        while (first < json.length() && (json.charAt(first) == '\uFEFF' || Character.isWhitespace(json.charAt(first)))) {
+            first++;
+        }
+        if (first == json.length() || json.charAt(first) != '[') {
+            return readJsonLines(new BufferedReader(new StringReader(json)), itemTable);
+        }
+
+        List<BatchRecord> records = new ArrayList<>();
+        JsonNode documents = mapper.readTree(json.substring(first));
+        for (int i = 0; i < documents.size(); i++) {
+            JsonNode node = documents.get(i);
+            if (!node.isObject()) {
+                throw new IOException("Elemento " + (i + 1) + ": se esperaba un objeto JSON");
+            }
+            records.add(toRecord(node, String.valueOf(i + 1), itemTable));
+        }
+        return records;
+    }
+
+    // --- JSONL ---
+
+    static List<BatchRecord> readJsonLines(BufferedReader reader, String itemTable) throws IOException {
+        List<BatchRecord> records = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+
+            JsonNode node = mapper.readTree(line);
+            if (!node.isObject()) {
+                throw new IOException("Línea " + lineNumber + ": se esperaba un objeto JSON");
+            }
+
+            records.add(toRecord(node, String.valueOf(lineNumber), itemTable));
+        }
+        return records;
+    }
+
+    private static BatchRecord toRecord(JsonNode node, String key, String itemTable) {
+        BatchRecord record = new BatchRecord(key);
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getKey().equalsIgnoreCase(itemTable) && field.getValue().isArray()) {
+                for (JsonNode item : field.getValue()) {
+                    record.getItems().add(toStringMap(item));
+                }
+            } else if (field.getValue().isValueNode()) {
+                record.getFields().put(field.getKey(), field.getValue().isNull() ? "" : field.getValue().asText());
+            }
+        }
+        return record;
+    }
+
+    private static Map<String, String> toStringMap(JsonNode item) {
+        Map<String, String> row = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> cells = item.fields();
+        while (cells.hasNext()) {
+            Map.Entry<String, JsonNode> cell = cells.next();
+            row.put(cell.getKey(), cell.getValue().isNull() ? "" : cell.getValue().asText());
+        }
+        return row;
+    }
+
+    // --- CSV ---
+
+    static List<BatchRecord> readCsv(BufferedReader reader, String itemTable) throws IOException {
+        List<BatchRecord> records = new ArrayList<>();
+
+        // The separator is only known once the whole header line is in, however long it is
+        String headerLine = readCsvLine(reader);
+        if (headerLine == null) return records;
+        char separator = separator(headerLine);
+
+        List<String> header = readCsvRow(new BufferedReader(new StringReader(headerLine)), separator);
+        // Strip the BOM Excel puts in front of UTF-8 exports
+        if (header.get(0).startsWith("\uFEFF")) {
+            header.set(0, header.get(0).substring(1));
+        }
+        String itemPrefix = itemTable + ".";
+
+        BatchRecord current = null;
+        List<String> row;
+        while ((row = readCsvRow(reader, separator)) != null) {
+            if (row.size() == 1 && row.get(0).isEmpty()) continue; // Blank line
+
+            String key = row.get(0);
+            if (current == null || !current.getKey().equals(key)) {
+                current = new BatchRecord(key);
+                records.add(current);
+                for (int i = 0; i < header.size(); i++) {
+                    if (!header.get(i).regionMatches(true, 0, itemPrefix, 0, itemPrefix.length())) {
+                        current.getFields().put(header.get(i), i < row.size() ? row.get(i) : "");
+                    }
+                }
+            }
+
+            Map<String, String> item = new LinkedHashMap<>();
+            boolean hasValue = false;
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).regionMatches(true, 0, itemPrefix, 0, itemPrefix.length())) {
+                    String value = i < row.size() ? row.get(i) : "";
+                    item.put(header.get(i).substring(itemPrefix.length()), value);
+                    hasValue |= !value.isBlank();
+                }
+            }
+            if (hasValue) current.getItems().add(item);
+        }
+        return records;
+    }
+
+    // ';' when the line has more of them than ',' (Excel with a comma decimal separator)
+    static char separator(String firstLine) {
+        return count(firstLine, ';') > count(firstLine, ',') ? ';' : ',';
+    }
+
+    // One raw CSV line without its line break; line breaks inside quotes are kept
+    private static String readCsvLine(BufferedReader reader) throws IOException {
+        StringBuilder line = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (c == '"') quoted = !quoted; // A doubled quote toggles twice
+            if (c == '\n' && !quoted) break;
+            if (c != '\r' || quoted) line.append((char) c);
+        }
+        return any ? line.toString() : null;
+    }
+
+    // RFC 4180: quoted cells may contain separators, doubled quotes and line breaks
+    static List<String> readCsvRow(BufferedReader reader, char separator) throws IOException {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        cell.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    cell.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                cell.append((char) c);
+            }
+        }
+
+        if (!any) return null;
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private static int count(String s, char c) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == c) n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,211 @@
+package com.bunshock.service;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import com.bunshock.model.AppProfile;
+
+/**
+ * Renders many documents at once on virtual threads.
+ *
+ * At most maxConcurrency jobs are in flight; submitting more blocks the caller until one
+ * finishes (backpressure). Compiled templates come from {@link TemplateCache} and are
+ * shared by all jobs using the same template. Targets ending in ".pdf" are exported with
+ * {@link PdfExporter}, anything else is written as HTML.
+ */
+public class BatchRenderService implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final Function<RenderJob, RenderResult> renderer;
+    private final ReportGenerator generator = new ReportGenerator();
+    private final PdfExporter pdfExporter = new PdfExporter();
+
+    public BatchRenderService(int maxConcurrency) {
+        this(maxConcurrency, null);
+    }
+
+    // renderer replaces the real rendering (tests); null renders for real
+    BatchRenderService(int maxConcurrency, Function<RenderJob, RenderResult> renderer) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.permits = new Semaphore(this.maxConcurrency);
+        this.renderer = renderer != null ? renderer : this::render;
+    }
+
+    /**
+     * Queues a job. Blocks while the service is at capacity.
+     * The future always completes with a result; check {@link RenderResult#isSuccess()}.
+     */
+    public CompletableFuture<RenderResult> submit(RenderJob job) throws InterruptedException {
+        permits.acquire();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return renderer.apply(job);
+                } finally {
+                    permits.release();
+                }
+            }, executor);
+        } catch (RuntimeException e) {
+            permits.release(); // Executor already closed
+            throw e;
+        }
+    }
+
+    /**
+     * Renders a stream of jobs and publishes one result per job as they complete.
+     *
+     * Nothing is rendered until a subscriber subscribes; the stream can be consumed once,
+     * so a second subscriber gets an error. Results the subscriber has not requested yet are
+     * buffered up to maxConcurrency; past that a job keeps its slot until its result has been
+     * handed over, so a slow subscriber slows down rendering instead of piling up results.
+     * Cancelling the subscription stops taking new jobs from the stream.
+     */
+    public Flow.Publisher<RenderResult> publish(Stream<RenderJob> jobs) {
+        AtomicBoolean subscribed = new AtomicBoolean();
+        return subscriber -> {
+            if (!subscribed.compareAndSet(false, true)) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override public void request(long n) {}
+                    @Override public void cancel() {}
+                });
+                subscriber.onError(new IllegalStateException("Los trabajos ya se publicaron a otro suscriptor"));
+                return;
+            }
+            SubmissionPublisher<RenderResult> publisher = new SubmissionPublisher<>(executor, maxConcurrency);
+            publisher.subscribe(subscriber);
+            executor.execute(() -> feed(jobs, publisher));
+        };
+    }
+
+    // Runs once the subscriber is attached, so no result is submitted to nobody
+    private void feed(Stream<RenderJob> jobs, SubmissionPublisher<RenderResult> publisher) {
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        try {
+            Iterator<RenderJob> it = jobs.iterator();
+            while (it.hasNext() && publisher.hasSubscribers()) {
+                RenderJob job = it.next();
+                permits.acquire();
+                running.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        publisher.submit(renderer.apply(job));
+                    } finally {
+                        permits.release();
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+            publisher.close();
+        } catch (Throwable e) {
+            publisher.closeExceptionally(e);
+        }
+    }
+
+    private RenderResult render(RenderJob job) {
+        long start = System.nanoTime();
+        try {
+            File templateFile = PathHelper.resolveFullPath(job.profileFile.getAbsoluteFile().getParentFile(),
+                    job.profile.getTemplatePath());
+            if (templateFile == null || !templateFile.exists()) {
+                throw new IllegalArgumentException("No se encuentra plantilla: " + job.profile.getTemplatePath());
+            }
+            CompiledTemplate template = TemplateCache.getInstance().get(templateFile);
+
+            Map<String, String> simpleData = new HashMap<>(job.fields);
+            simpleData.putIfAbsent("TEMPLATE_NAME", job.profile.getProfileName());
+
+            File templateFolder = templateFile.getAbsoluteFile().getParentFile();
+            if (job.target.getFileName().toString().toLowerCase().endsWith(".pdf")) {
+                pdfExporter.export(template, simpleData, job.items, templateFolder, job.target);
+            } else {
+                generator.renderToFile(template, simpleData, job.items, job.target,
+                        HeadInjectingWriter.baseTags(templateFolder));
+            }
+            return new RenderResult(job, System.nanoTime() - start, null);
+        } catch (Exception e) {
+            return new RenderResult(job, System.nanoTime() - start, e);
+        }
+    }
+
+    /**
+     * Stops accepting jobs and waits for the running ones.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    // --- Jobs ---
+
+    /** One document: profile (and the file it came from, to resolve the template), data and target file. */
+    public static class RenderJob {
+        private final AppProfile profile;
+        private final File profileFile;
+        private final Map<String, String> fields;
+        private final List<Map<String, String>> items;
+        private final Path target;
+        private final Object tag;
+
+        public RenderJob(AppProfile profile, File profileFile, Map<String, String> fields,
+                         List<Map<String, String>> items, Path target, Object tag) {
+            this.profile = profile;
+            this.profileFile = profileFile;
+            this.fields = fields;
+            this.items = items;
+            this.target = target;
+            this.tag = tag;
+        }
+
+        public Path getTarget() {
+            return target;
+        }
+
+        /** Caller data carried through to the result (e.g. the record key). */
+        public Object getTag() {
+            return tag;
+        }
+    }
+
+    public static class RenderResult {
+        private final RenderJob job;
+        private final long nanos;
+        private final Throwable error;
+
+        RenderResult(RenderJob job, long nanos, Throwable error) {
+            this.job = job;
+            this.nanos = nanos;
+            this.error = error;
+        }
+
+        public RenderJob getJob() {
+            return job;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
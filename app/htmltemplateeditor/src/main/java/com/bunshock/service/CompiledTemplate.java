@@ -0,0 +1,185 @@
+package com.bunshock.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * An HTML template parsed once into literal segments, {{KEY}} placeholders
+ * and {{#BLOCK}}...{{/BLOCK}} sections.
+ * Instances are safe to share between threads.
+ */
+public final class CompiledTemplate {
+
+    private final String source;
+    private final List<Node> nodes;
+    private final String origin;
+    private volatile String contentHash;
+
+    private CompiledTemplate(String source, List<Node> nodes, String origin) {
+        this.source = source;
+        this.nodes = nodes;
+        this.origin = origin;
+    }
+
+    public static CompiledTemplate compile(String html) {
+        return compile(html, null);
+    }
+
+    /**
+     * @param origin where the template was read from (shown in diagnostics), or null
+     */
+    public static CompiledTemplate compile(String html, String origin) {
+        return new CompiledTemplate(html, parse(html, 0, html.length()), origin);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /** File the template was read from, or null. */
+    public String getOrigin() {
+        return origin;
+    }
+
+    /**
+     * SHA-256 of the template source (hex), computed on first use.
+     */
+    public String getContentHash() {
+        String hash = contentHash;
+        if (hash == null) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+                hash = HexFormat.of().formatHex(digest);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Row analysis of a section body, computed on first use and kept with the template.
+     */
+    ItemRowTemplate getRowTemplate(Section section) {
+        ItemRowTemplate rows = section.rowTemplate;
+        if (rows == null) {
+            // Racing threads compute the same result, so the last write wins harmlessly
+            rows = ItemRowTemplate.analyze(source.substring(section.bodyStart, section.bodyEnd));
+            section.rowTemplate = rows;
+        }
+        return rows;
+    }
+
+    // --- Parsing ---
+
+    private static List<Node> parse(String html, int from, int to) {
+        List<Node> result = new ArrayList<>();
+        int literalStart = from;
+        int searchFrom = from;
+
+        while (searchFrom < to) {
+            int close = html.indexOf("}}", searchFrom);
+            if (close < 0 || close + 2 > to) break;
+
+            // The innermost "{{" before the "}}" opens the tag, so "{{{KEY}}}" yields {{KEY}}
+            int open = html.lastIndexOf("{{", close - 2);
+            if (open < literalStart) {
+                searchFrom = close + 2;
+                continue;
+            }
+
+            String name = html.substring(open + 2, close);
+            int tagEnd = close + 2;
+
+            if (name.startsWith("#") && name.length() > 1) {
+                String closeTag = "{{/" + name.substring(1) + "}}";
+                int closeStart = indexOfIgnoreCase(html, closeTag, tagEnd, to);
+                if (closeStart >= 0) {
+                    addLiteral(result, literalStart, open);
+                    int closeEnd = closeStart + closeTag.length();
+                    List<Node> body = parse(html, tagEnd, closeStart);
+                    result.add(new Section(name.substring(1), open, tagEnd, closeStart, closeEnd, body));
+                    literalStart = closeEnd;
+                    searchFrom = closeEnd;
+                    continue;
+                }
+            }
+
+            addLiteral(result, literalStart, open);
+            result.add(new Placeholder(name, open, tagEnd));
+            literalStart = tagEnd;
+            searchFrom = tagEnd;
+        }
+
+        addLiteral(result, literalStart, to);
+        return Collections.unmodifiableList(result);
+    }
+
+    private static void addLiteral(List<Node> nodes, int start, int end) {
+        if (end > start) nodes.add(new Literal(start, end));
+    }
+
+    static int indexOfIgnoreCase(String text, String needle, int from, int to) {
+        int last = to - needle.length();
+        for (int i = from; i <= last; i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) return i;
+        }
+        return -1;
+    }
+
+    // --- Token Tree ---
+
+    abstract static class Node {
+        final int start;
+        final int end;
+
+        Node(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /** Raw HTML copied as-is. */
+    static final class Literal extends Node {
+        Literal(int start, int end) {
+            super(start, end);
+        }
+    }
+
+    /** A {{KEY}} tag. Rendered verbatim when no value is supplied for KEY. */
+    static final class Placeholder extends Node {
+        final String name;
+
+        Placeholder(String name, int start, int end) {
+            super(start, end);
+            this.name = name;
+        }
+    }
+
+    /** A {{#NAME}}...{{/NAME}} block. start/end cover both tags. */
+    static final class Section extends Node {
+        final String name;
+        final int bodyStart;
+        final int bodyEnd;
+        final List<Node> body;
+        volatile ItemRowTemplate rowTemplate;
+
+        Section(String name, int start, int bodyStart, int bodyEnd, int end, List<Node> body) {
+            super(start, end);
+            this.name = name;
+            this.bodyStart = bodyStart;
+            this.bodyEnd = bodyEnd;
+            this.body = body;
+        }
+    }
+}
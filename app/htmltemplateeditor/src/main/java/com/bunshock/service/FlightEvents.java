@@ -0,0 +1,105 @@
+package com.bunshock.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the stages of a print (template, options, WebView, printer).
+ *
+ * A recording taken on a slow workstation (e.g. jcmd &lt;pid&gt; JFR.start duration=5m
+ * filename=lento.jfr) shows which stage stalled and on what. Without a recording the events
+ * are disabled and cost a flag check; fields are only filled in when shouldCommit() says the
+ * event will be kept.
+ */
+public final class FlightEvents {
+    private static final String APP = "Bunshock";
+
+    private FlightEvents() {}
+
+    @Name("com.bunshock.TemplateCompile")
+    @Label("Lectura de plantilla")
+    @Description("Read and compile of a template file (cache miss)")
+    @Category({APP, "Plantillas"})
+    @StackTrace(false)
+    public static final class TemplateCompile extends Event {
+        @Label("Plantilla") public String templatePath;
+        @Label("Tamaño") @DataAmount public long bytes;
+    }
+
+    @Name("com.bunshock.TemplateRender")
+    @Label("Render de plantilla")
+    @Category({APP, "Plantillas"})
+    @StackTrace(false)
+    public static final class TemplateRender extends Event {
+        @Label("Plantilla") public String templatePath;
+        @Label("Caracteres generados") public long chars;
+        @Label("Filas") public int rows;
+    }
+
+    @Name("com.bunshock.OptionsLookup")
+    @Label("Consulta de opciones")
+    @Category({APP, "Opciones"})
+    @StackTrace(false)
+    public static final class OptionsLookup extends Event {
+        @Label("Campo") public String field;
+        @Label("Valor padre") public String parentValue;
+        @Label("Búsqueda") public String query;
+        @Label("Resultados") public int results;
+    }
+
+    @Name("com.bunshock.OptionsSync")
+    @Label("Sincronización de opciones")
+    @Category({APP, "Opciones"})
+    @StackTrace(false)
+    public static final class OptionsSync extends Event {
+        @Label("Cambios") public boolean changed;
+        @Label("Agregados leídos") public int additions;
+        @Label("Leído del servidor") @DataAmount public long bytes;
+        @Label("Error") public String error;
+    }
+
+    @Name("com.bunshock.OptionsSave")
+    @Label("Guardado de opciones")
+    @Category({APP, "Opciones"})
+    @StackTrace(false)
+    public static final class OptionsSave extends Event {
+        @Label("Copia local") @DataAmount public long backupBytes;
+        @Label("Error") public String error;
+    }
+
+    @Name("com.bunshock.WebViewLoad")
+    @Label("Carga en WebView")
+    @Description("Layout of the rendered document in the print WebView")
+    @Category({APP, "Impresión"})
+    @StackTrace(false)
+    public static final class WebViewLoad extends Event {
+        @Label("Plantilla") public String templatePath;
+        @Label("Reutilizado") @Description("Same document as the one already shown (reprint)") public boolean reused;
+    }
+
+    @Name("com.bunshock.Print")
+    @Label("Impresión")
+    @Description("Sending the laid out page to the printer (dialog not included)")
+    @Category({APP, "Impresión"})
+    @StackTrace(false)
+    public static final class Print extends Event {
+        @Label("Plantilla") public String templatePath;
+        @Label("Impresora") public String printer;
+    }
+
+    @Name("com.bunshock.ProfileLoad")
+    @Label("Carga de perfil")
+    @Category({APP, "Perfiles"})
+    @StackTrace(false)
+    public static final class ProfileLoad extends Event {
+        @Label("Perfil") public String path;
+        @Label("Tamaño") @DataAmount public long bytes;
+        @Label("Campos") public int fields;
+        @Label("Tablas") public int tables;
+    }
+}
@@ -0,0 +1,150 @@
+package com.bunshock.service;
+
+import java.io.File;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Inserts tags (e.g. a {@code <base>}) into the document head while it is being written.
+ *
+ * Same rules as the old String-based injection:
+ * - after every {@code <head>} if the template has one,
+ * - otherwise a new {@code <html><head>...</head>} replaces everything up to the first {@code <html>}.
+ */
+public class HeadInjectingWriter extends FilterWriter {
+    private static final String HEAD = "<head>";
+    private static final String HTML = "<html>";
+
+    private enum Mode { AFTER_HEAD, SKIP_TO_HTML, PASS }
+
+    private final String tags;
+    private Mode mode;
+    private boolean skipping;
+    private int matched; // Chars of the needle seen but not yet written
+
+    private final char[] buffer = new char[1024];
+    private int buffered;
+
+    public HeadInjectingWriter(Writer out, CompiledTemplate template, String tags) throws IOException {
+        super(out);
+        this.tags = tags;
+        String source = template.getSource();
+        if (source.contains(HEAD)) {
+            mode = Mode.AFTER_HEAD;
+        } else {
+            put("<html><head>" + tags + "</head>");
+            mode = source.contains(HTML) ? Mode.SKIP_TO_HTML : Mode.PASS;
+            skipping = mode == Mode.SKIP_TO_HTML;
+        }
+    }
+
+    /**
+     * Tags for a rendered file: UTF-8 charset plus a base URL so relative paths
+     * (e.g. '../logo.jpg') resolve from the template folder.
+     */
+    public static String baseTags(File templateFolder) {
+        return "<meta charset=\"UTF-8\">\n    <base href=\"" + templateFolder.toURI() + "\">";
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        accept((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            accept(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            accept(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // A trailing partial match is just text
+        if (matched > 0) {
+            put(needle(), 0, matched);
+            matched = 0;
+        }
+        drain();
+        out.close();
+    }
+
+    private void accept(char c) throws IOException {
+        if (mode == Mode.PASS) {
+            put(c);
+            return;
+        }
+
+        String needle = needle();
+        if (c == needle.charAt(matched)) {
+            matched++;
+            if (matched == needle.length()) {
+                matched = 0;
+                onMatch();
+            }
+            return;
+        }
+
+        if (matched > 0) {
+            put(needle, 0, matched);
+            matched = 0;
+            if (c == needle.charAt(0)) {
+                matched = 1;
+                return;
+            }
+        }
+        put(c);
+    }
+
+    private void onMatch() throws IOException {
+        if (mode == Mode.AFTER_HEAD) {
+            put(HEAD);
+            put("\n    " + tags);
+        } else {
+            // Everything up to and including the first <html> was replaced by the new head
+            skipping = false;
+            mode = Mode.PASS;
+        }
+    }
+
+    private String needle() {
+        return mode == Mode.AFTER_HEAD ? HEAD : HTML;
+    }
+
+    private void put(char c) throws IOException {
+        if (skipping) return;
+        if (buffered == buffer.length) drain();
+        buffer[buffered++] = c;
+    }
+
+    private void put(String s) throws IOException {
+        put(s, 0, s.length());
+    }
+
+    private void put(String s, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            put(s.charAt(i));
+        }
+    }
+
+    private void drain() throws IOException {
+        if (buffered > 0) {
+            out.write(buffer, 0, buffered);
+            buffered = 0;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.bunshock.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bunshock.model.FieldConfig;
+
+/**
+ * Reads item rows pasted from a spreadsheet (TSV) or exported as CSV, for one item table.
+ *
+ * The separator is guessed from the first line: tab, else ';' or ','. If the first line
+ * names columns (tag or label, ignoring case) it is a header and maps cells to columns;
+ * otherwise cells are taken in column order. Blank lines are skipped.
+ *
+ * Values of columns with options are checked against the current options in the same pass
+ * (binary search in the sorted lists); unknown values are imported anyway and reported.
+ */
+public class ItemImporter {
+    private static final int MAX_PROBLEMS = 20;
+
+    public static Result read(Reader reader, List<FieldConfig> columns) throws IOException {
+        return read(reader, columns, OptionsManager.getInstance().index());
+    }
+
+    static Result read(Reader source, List<FieldConfig> columns, OptionsIndex options) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader buffered ? buffered : new BufferedReader(source);
+        Result result = new Result();
+
+        reader.mark(64 * 1024);
+        String firstLine = reader.readLine();
+        if (firstLine == null) return result;
+        reader.reset();
+        char separator = firstLine.indexOf('\t') >= 0 ? '\t' : BatchDataReader.separator(firstLine);
+
+        List<String> first = BatchDataReader.readCsvRow(reader, separator);
+        int[] target = headerMapping(first, columns);
+        boolean header = target != null;
+        List<String> row = first;
+        if (header) {
+            row = BatchDataReader.readCsvRow(reader, separator);
+        } else {
+            target = new int[Math.min(first.size(), columns.size())];
+            for (int i = 0; i < target.length; i++) target[i] = i;
+        }
+
+        Validator validator = new Validator(columns, options, result);
+        int line = header ? 2 : 1; // Record number in the source, as a spreadsheet shows it
+        for (; row != null; row = BatchDataReader.readCsvRow(reader, separator), line++) {
+            String[] values = new String[columns.size()];
+            boolean hasValue = false;
+            for (int cell = 0; cell < target.length && cell < row.size(); cell++) {
+                if (target[cell] < 0) continue;
+                String value = row.get(cell).trim();
+                values[target[cell]] = value;
+                hasValue |= !value.isEmpty();
+            }
+            if (!hasValue) continue; // Blank line
+
+            for (int c = 0; c < values.length; c++) {
+                if (values[c] == null) values[c] = "";
+            }
+            validator.check(values, line);
+            result.rows.add(values);
+        }
+        return result;
+    }
+
+    // Column position per cell (-1: not a column), or null if the row is data rather than a header
+    private static int[] headerMapping(List<String> cells, List<FieldConfig> columns) {
+        Map<String, Integer> names = new HashMap<>();
+        for (int c = columns.size() - 1; c >= 0; c--) {
+            FieldConfig column = columns.get(c);
+            if (column.getLabel() != null) names.put(OptionsIndex.fold(column.getLabel().trim()), c);
+            if (column.getTag() != null) names.put(OptionsIndex.fold(column.getTag().trim()), c);
+        }
+
+        int[] target = new int[cells.size()];
+        boolean any = false;
+        for (int i = 0; i < target.length; i++) {
+            String cell = cells.get(i).trim();
+            if (i == 0 && cell.startsWith("\uFEFF")) cell = cell.substring(1); // Excel UTF-8 BOM
+            Integer column = names.get(OptionsIndex.fold(cell));
+            target[i] = column == null ? -1 : column;
+            any |= column != null;
+        }
+        return any ? target : null;
+    }
+
+    // Checks values against the options of their field (filtered by the row's parent value)
+    private static final class Validator {
+        private final List<FieldConfig> columns;
+        private final OptionsIndex options;
+        private final Result result;
+        private final boolean[] checked;
+        private final int[] parent; // Column of the parent field, or -1
+
+        Validator(List<FieldConfig> columns, OptionsIndex options, Result result) {
+            this.columns = columns;
+            this.options = options;
+            this.result = result;
+            this.checked = new boolean[columns.size()];
+            this.parent = new int[columns.size()];
+            for (int c = 0; c < checked.length; c++) {
+                String tag = columns.get(c).getTag();
+                checked[c] = options.hasField(tag);
+                parent[c] = -1;
+                String dependency = options.dependency(tag);
+                for (int p = 0; dependency != null && p < columns.size(); p++) {
+                    if (dependency.equals(columns.get(p).getTag())) parent[c] = p;
+                }
+            }
+        }
+
+        void check(String[] values, int line) {
+            for (int c = 0; c < values.length; c++) {
+                if (!checked[c] || values[c].isEmpty()) continue;
+                String parentValue = parent[c] >= 0 ? values[parent[c]] : null;
+                List<String> allowed = options.get(columns.get(c).getTag(), parentValue);
+                if (Collections.binarySearch(allowed, values[c]) < 0) {
+                    result.problemCount++;
+                    if (result.problems.size() < MAX_PROBLEMS) {
+                        result.problems.add("Fila " + line + ": \"" + values[c] + "\" no es una opción de "
+                                + columns.get(c).getLabel());
+                    }
+                }
+            }
+        }
+    }
+
+    public static final class Result {
+        private final List<String[]> rows = new ArrayList<>();
+        private final List<String> problems = new ArrayList<>();
+        private int problemCount;
+
+        /** One array per row, in the order of the table's columns. */
+        public List<String[]> getRows() {
+            return rows;
+        }
+
+        /** The first problems found (values that are not options). */
+        public List<String> getProblems() {
+            return problems;
+        }
+
+        public int getProblemCount() {
+            return problemCount;
+        }
+    }
+}
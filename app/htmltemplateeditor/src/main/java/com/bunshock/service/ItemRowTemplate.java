@@ -0,0 +1,409 @@
+package com.bunshock.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.bunshock.service.CompiledTemplate.Node;
+import com.bunshock.service.CompiledTemplate.Placeholder;
+import com.bunshock.service.CompiledTemplate.Section;
+
+/**
+ * The body of an {{#ITEMS}} block, analyzed once so rows can be emitted by copying segments.
+ *
+ * For every placeholder, the div/p/span/li wrapper that the empty-field cleanup removes
+ * is located up front. A row then just skips the wrappers of its empty fields. Placeholders
+ * of the document's simple fields (e.g. {{FECHA}} inside the block) are fixed slots, filled
+ * with the same value in every row, so one analysis serves every render of the template.
+ *
+ * The output is the same as filling the simple fields and then running {@link #renderLegacy}
+ * on each row. Bodies whose wrappers interact with each other (see {@link #wrappersIndependent})
+ * use the regex path, and so do rows whose values contain markup, since the regex path
+ * re-reads them as part of the template.
+ */
+final class ItemRowTemplate {
+    private static final String[] WRAPPER_TAGS = { "div", "p", "span", "li" };
+
+    private final String body;
+    private final boolean regular;
+
+    // Distinct placeholder names (case-insensitive); only plain ones can be item keys
+    private final Map<String, Integer> keyIndex = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final String[] keyNames;
+
+    // Placeholders in document order
+    private final int[] placeholderStart;
+    private final int[] placeholderEnd;
+    private final int[] placeholderKey;
+
+    // Wrapper ranges removed when a key is empty, sorted by start
+    private final int[] wrapperStart;
+    private final int[] wrapperEnd;
+    private final int[] wrapperKey;
+
+    private ItemRowTemplate(String body) {
+        this.body = body;
+
+        // 1. Placeholders
+        List<Placeholder> found = new ArrayList<>();
+        collectPlaceholders(CompiledTemplate.compile(body).getNodes(), found);
+        placeholderStart = new int[found.size()];
+        placeholderEnd = new int[found.size()];
+        placeholderKey = new int[found.size()];
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < found.size(); i++) {
+            Placeholder p = found.get(i);
+            Integer key = keyIndex.get(p.name);
+            if (key == null) {
+                key = names.size();
+                keyIndex.put(p.name, key);
+                names.add(p.name);
+            }
+            placeholderStart[i] = p.start;
+            placeholderEnd[i] = p.end;
+            placeholderKey[i] = key;
+        }
+        keyNames = names.toArray(new String[0]);
+
+        // 2. Wrappers, located with the same expression the cleanup always used
+        List<int[]> wrappers = new ArrayList<>();
+        for (int key = 0; key < keyNames.length; key++) {
+            if (!isPlainName(keyNames[key])) continue;
+            Matcher m = wrapperPattern(keyNames[key]).matcher(body);
+            while (m.find()) {
+                wrappers.add(new int[] { m.start(), m.end(), key });
+            }
+        }
+        wrappers.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+        wrapperStart = new int[wrappers.size()];
+        wrapperEnd = new int[wrappers.size()];
+        wrapperKey = new int[wrappers.size()];
+        for (int i = 0; i < wrappers.size(); i++) {
+            wrapperStart[i] = wrappers.get(i)[0];
+            wrapperEnd[i] = wrappers.get(i)[1];
+            wrapperKey[i] = wrappers.get(i)[2];
+        }
+
+        // 3. Skipping wrappers only equals the sequential cleanup when they do not interact
+        regular = wrappersIndependent();
+    }
+
+    static ItemRowTemplate analyze(String body) {
+        return new ItemRowTemplate(body);
+    }
+
+    boolean isRegular() {
+        return regular;
+    }
+
+    /**
+     * Writes one copy of the body per item, with the given simple fields (case-insensitive
+     * keys) in their slots. Only one row is buffered at a time.
+     */
+    void render(Writer out, List<Map<String, String>> items, Map<String, String> fields) throws IOException {
+        RowState state = new RowState(fixedValues(fields));
+        boolean slots = regular && !containsMarkup(state.fixed);
+        String filled = null; // Body with the simple fields, for the regex path
+        StringBuilder cleaned = new StringBuilder(body.length() + 64);
+        char[] chunk = new char[0];
+        for (Map<String, String> itemData : items) {
+            if (!slots || !fill(state, itemData)) {
+                if (filled == null) filled = fillFields(state.fixed);
+                out.write(renderLegacy(filled, itemData));
+                continue;
+            }
+            state.row.setLength(0);
+            renderRow(state);
+
+            cleaned.setLength(0);
+            appendWithoutBlankLines(cleaned, state.row);
+            if (chunk.length < cleaned.length()) chunk = new char[cleaned.length()];
+            cleaned.getChars(0, cleaned.length(), chunk, 0);
+            out.write(chunk, 0, cleaned.length());
+        }
+    }
+
+    private String[] fixedValues(Map<String, String> fields) {
+        String[] fixed = new String[keyNames.length];
+        if (fields.isEmpty()) return fixed;
+        for (int key = 0; key < keyNames.length; key++) {
+            fixed[key] = fields.get(keyNames[key]);
+        }
+        return fixed;
+    }
+
+    private String fillFields(String[] fixed) {
+        StringBuilder filled = new StringBuilder(body.length() + 64);
+        int cursor = 0;
+        for (int i = 0; i < placeholderStart.length; i++) {
+            String value = fixed[placeholderKey[i]];
+            if (value == null) continue;
+            filled.append(body, cursor, placeholderStart[i]).append(value);
+            cursor = placeholderEnd[i];
+        }
+        return filled.append(body, cursor, body.length()).toString();
+    }
+
+    // Loads a row into the state. Returns false if it must go through the regex path.
+    private boolean fill(RowState state, Map<String, String> itemData) {
+        Arrays.fill(state.values, null);
+        for (Map.Entry<String, String> entry : itemData.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (!isPlainName(key) || containsMarkup(value)) return false;
+
+            Integer index = keyIndex.get(key);
+            if (index == null || state.fixed[index] != null || state.values[index] != null) continue; // First match wins
+            state.values[index] = (value == null || value.trim().isEmpty()) ? "" : value;
+        }
+        return true;
+    }
+
+    private void renderRow(RowState state) {
+        String[] values = state.values;
+        StringBuilder row = state.row;
+
+        // 1. Merge the wrappers of empty fields into skip ranges
+        int skipCount = 0;
+        for (int i = 0; i < wrapperStart.length; i++) {
+            String value = values[wrapperKey[i]];
+            if (value == null || !value.isEmpty()) continue;
+            if (skipCount > 0 && wrapperStart[i] < state.skipEnd[skipCount - 1]) {
+                state.skipEnd[skipCount - 1] = Math.max(state.skipEnd[skipCount - 1], wrapperEnd[i]);
+            } else {
+                state.skipStart[skipCount] = wrapperStart[i];
+                state.skipEnd[skipCount] = wrapperEnd[i];
+                skipCount++;
+            }
+        }
+
+        // 2. Copy literal segments and values, jumping over the skip ranges
+        int skip = 0;
+        int cursor = 0;
+        for (int i = 0; i < placeholderStart.length; i++) {
+            skip = copyVisible(row, cursor, placeholderStart[i], state, skip, skipCount);
+            cursor = placeholderEnd[i];
+
+            while (skip < skipCount && state.skipEnd[skip] <= placeholderStart[i]) skip++;
+            if (skip < skipCount && state.skipStart[skip] <= placeholderStart[i]) continue; // Inside a removed wrapper
+
+            int key = placeholderKey[i];
+            String value = state.fixed[key] != null ? state.fixed[key] : values[key];
+            if (value == null) {
+                row.append(body, placeholderStart[i], placeholderEnd[i]); // No data for it, leave as-is
+            } else {
+                row.append(value); // Empty fields without a wrapper just vanish
+            }
+        }
+        copyVisible(row, cursor, body.length(), state, skip, skipCount);
+    }
+
+    private int copyVisible(StringBuilder row, int from, int to, RowState state, int skip, int skipCount) {
+        int cursor = from;
+        while (cursor < to) {
+            while (skip < skipCount && state.skipEnd[skip] <= cursor) skip++;
+            if (skip < skipCount && state.skipStart[skip] <= cursor) {
+                cursor = Math.min(to, state.skipEnd[skip]);
+                continue;
+            }
+            int stop = skip < skipCount ? Math.min(to, state.skipStart[skip]) : to;
+            row.append(body, cursor, stop);
+            cursor = stop;
+        }
+        return skip;
+    }
+
+    private final class RowState {
+        final String[] fixed; // Simple field values, the same in every row
+        final String[] values = new String[keyNames.length];
+        final int[] skipStart = new int[wrapperStart.length];
+        final int[] skipEnd = new int[wrapperStart.length];
+        final StringBuilder row = new StringBuilder(body.length() + 64);
+
+        RowState(String[] fixed) {
+            this.fixed = fixed;
+        }
+    }
+
+    // --- Analysis helpers ---
+
+    private static void collectPlaceholders(List<Node> nodes, List<Placeholder> found) {
+        for (Node node : nodes) {
+            if (node instanceof Placeholder p) {
+                found.add(p);
+            } else if (node instanceof Section s) {
+                collectPlaceholders(s.body, found);
+            }
+        }
+    }
+
+    // Keys are spliced into a regex by the legacy path, so only word characters are safe here
+    private static boolean isPlainName(String name) {
+        if (name == null || name.isEmpty()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean word = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+            if (!word) return false;
+        }
+        return true;
+    }
+
+    private static boolean containsMarkup(String[] values) {
+        for (String value : values) {
+            if (containsMarkup(value)) return true;
+        }
+        return false;
+    }
+
+    private static boolean containsMarkup(String value) {
+        if (value == null) return false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '<' || c == '>' || c == '{' || c == '}') return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether removing any wrapper leaves every other key's wrappers as they were, so the
+     * removals can be applied in any order, all at once. Wrappers must not overlap (unless
+     * they are the same range), must not sit where their removal joins text into a new tag or
+     * placeholder, and must not contain a closing tag that ends a tag opened before them:
+     * removing that closing tag would let the cleanup of a later key start further back.
+     */
+    private boolean wrappersIndependent() {
+        int lastStart = -1;
+        int lastEnd = -1;
+        for (int i = 0; i < wrapperStart.length; i++) {
+            int start = wrapperStart[i];
+            int end = wrapperEnd[i];
+            if (start == lastStart && end == lastEnd) continue;
+            if (start < lastEnd) return false;
+            lastStart = start;
+            lastEnd = end;
+
+            char before = start > 0 ? body.charAt(start - 1) : ' ';
+            char after = end < body.length() ? body.charAt(end) : ' ';
+            if (before == '<' || before == '/' || before == '{' || after == '}') return false;
+            for (String tag : WRAPPER_TAGS) {
+                String close = "</" + tag + ">";
+                if (CompiledTemplate.indexOfIgnoreCase(body, close, start, end) >= 0
+                        && lastIndexOfIgnoreCase("<" + tag, start) > lastIndexOfIgnoreCase(close, start)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int lastIndexOfIgnoreCase(String needle, int before) {
+        for (int i = before - needle.length(); i >= 0; i--) {
+            if (body.regionMatches(true, i, needle, 0, needle.length())) return i;
+        }
+        return -1;
+    }
+
+    private static Pattern wrapperPattern(String key) {
+        return Pattern.compile("(?is)<(div|p|span|li)[^>]*>(?:(?!<\\/\\1>).)*?\\{\\{" + key + "\\}\\}.*?<\\/\\1>");
+    }
+
+    // --- Regex path ---
+
+    static String renderLegacy(String itemTemplate, Map<String, String> itemData) {
+        String rowHtml = itemTemplate;
+
+        for (Map.Entry<String, String> entry : itemData.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            boolean isEmpty = (value == null || value.trim().isEmpty());
+
+            if (isEmpty) {
+                // --- THE FIX ---
+                // 1. We match the OPENING tag of the container: <div ...>
+                // 2. We allow ANY content (.*? including newlines/spans)
+                // 3. Until we hit {{KEY}}
+                // 4. Then we find the CLOSING tag of that same container: </div>
+
+                // "dotall" mode (?s) allows matching across newlines
+                // We target 'div', 'p', 'span', or 'li' tags specifically to avoid accidental deletion of larger blocks
+                String removeRegex = "(?is)<(div|p|span|li)[^>]*>(?:(?!<\\/\\1>).)*?\\{\\{" + key + "\\}\\}.*?<\\/\\1>";
+
+                rowHtml = rowHtml.replaceAll(removeRegex, "");
+
+                // Cleanup: Also remove the bare placeholder if the regex didn't catch a wrapper
+                rowHtml = rowHtml.replaceAll("(?i)\\{\\{" + key + "\\}\\}", "");
+            } else {
+                // Standard Replacement
+                String placeholderRegex = "(?i)\\{\\{" + key + "\\}\\}";
+                rowHtml = rowHtml.replaceAll(placeholderRegex, Matcher.quoteReplacement(value));
+            }
+        }
+        // Cleanup empty lines
+        return rowHtml.replaceAll("(?m)^\\s+$", "");
+    }
+
+    // --- Blank line cleanup ---
+
+    /**
+     * Appends the row with whitespace-only lines emptied.
+     * Same result as {@code row.replaceAll("(?m)^\\s+$", "")} without the regex.
+     */
+    static void appendWithoutBlankLines(StringBuilder out, CharSequence row) {
+        int len = row.length();
+        int copied = 0;
+        int i = 0;
+        while (i < len) {
+            if (isSpace(row.charAt(i)) && isLineStart(row, i)) {
+                int run = i;
+                while (run < len && isSpace(row.charAt(run))) run++;
+
+                // \s+ is greedy: take the longest run that still ends at a line end
+                int end = -1;
+                for (int e = run; e > i; e--) {
+                    if (isLineEnd(row, e)) {
+                        end = e;
+                        break;
+                    }
+                }
+                if (end > 0) {
+                    out.append(row, copied, i);
+                    copied = end;
+                    i = end;
+                    continue;
+                }
+            }
+            i++;
+        }
+        out.append(row, copied, len);
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    // Multiline ^: start of input or after a terminator, but not between \r and \n
+    private static boolean isLineStart(CharSequence s, int i) {
+        if (i == 0) return true;
+        char prev = s.charAt(i - 1);
+        if (!isLineTerminator(prev)) return false;
+        return !(prev == '\r' && s.charAt(i) == '\n');
+    }
+
+    // Multiline $: end of input or before a terminator, but not between \r and \n
+    private static boolean isLineEnd(CharSequence s, int i) {
+        if (i == s.length()) return true;
+        char c = s.charAt(i);
+        if (c == '\n') return !(i > 0 && s.charAt(i - 1) == '\r');
+        return isLineTerminator(c);
+    }
+}
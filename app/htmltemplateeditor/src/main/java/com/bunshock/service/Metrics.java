@@ -0,0 +1,305 @@
+package com.bunshock.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters, timers and histograms for the slow paths: template reads, rendering, WebView
+ * layout, printing, options sync/save and profile loads.
+ *
+ * Recording is a few atomic adds and safe from any thread. Each metric is published over
+ * JMX as com.bunshock:type=Metrics,name=... and, once {@link #startReporting} runs, appended
+ * to a local CSV file every interval (only metrics that changed); the file rolls over at
+ * {@link #REPORT_MAX_BYTES}, keeping {@link #REPORT_KEEP} old files.
+ */
+public class Metrics {
+    static final long REPORT_MAX_BYTES = 1024 * 1024;
+    static final int REPORT_KEEP = 2;
+    private static final String REPORT_HEADER = "hora,metrica,tipo,cantidad,media,maximo,p50,p95,p99\n";
+
+    private static Metrics instance;
+
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>(); // By name, for display
+    private final MBeanServer jmx;
+    private final Map<String, Long> reportedCounts = new HashMap<>(); // Report thread only
+    private ScheduledExecutorService reporter;
+
+    // jmx may be null (tests)
+    Metrics(MBeanServer jmx) {
+        this.jmx = jmx;
+    }
+
+    public static synchronized Metrics getInstance() {
+        if (instance == null) instance = new Metrics(ManagementFactory.getPlatformMBeanServer());
+        return instance;
+    }
+
+    /** Starts timing with {@link Timer#start()}; meant for try-with-resources. */
+    public static Timer.Sample time(String name) {
+        return getInstance().timer(name).start();
+    }
+
+    public Counter counter(String name) {
+        return (Counter) metrics.computeIfAbsent(name, n -> register(new Counter(n)));
+    }
+
+    public Timer timer(String name) {
+        return (Timer) metrics.computeIfAbsent(name, n -> register(new Timer(n)));
+    }
+
+    public Histogram histogram(String name) {
+        return (Histogram) metrics.computeIfAbsent(name, n -> register(new Histogram(n, "")));
+    }
+
+    /** Every metric, by name. */
+    public List<Metric> getAll() {
+        return new ArrayList<>(metrics.values());
+    }
+
+    private <M extends Metric> M register(M metric) {
+        if (jmx != null) {
+            try {
+                jmx.registerMBean(metric, new ObjectName("com.bunshock:type=Metrics,name=" + ObjectName.quote(metric.getName())));
+            } catch (Exception e) {
+                System.err.println("No se pudo publicar la métrica " + metric.getName() + ": " + e.getMessage());
+            }
+        }
+        return metric;
+    }
+
+    /**
+     * Appends the metrics to file every intervalSeconds, on a background thread.
+     */
+    public synchronized void startReporting(Path file, long intervalSeconds) {
+        if (reporter != null) return;
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-report");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, intervalSeconds);
+        reporter.scheduleWithFixedDelay(() -> {
+            try {
+                writeReport(file);
+            } catch (IOException e) {
+                System.err.println("No se pudieron guardar las métricas: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    // One CSV line per metric recorded since the last report
+    synchronized void writeReport(Path file) throws IOException {
+        String time = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        StringBuilder lines = new StringBuilder();
+        for (Metric metric : metrics.values()) {
+            long count = metric.getCount();
+            Long reported = reportedCounts.put(metric.getName(), count);
+            if (count == 0 || (reported != null && reported == count)) continue;
+            lines.append(time).append(',').append(metric.getName()).append(',').append(metric.getType())
+                 .append(',').append(count)
+                 .append(',').append(format(metric.getMean())).append(',').append(format(metric.getMax()))
+                 .append(',').append(format(metric.getP50())).append(',').append(format(metric.getP95()))
+                 .append(',').append(format(metric.getP99())).append('\n');
+        }
+        if (lines.length() == 0) return;
+
+        if (Files.exists(file) && Files.size(file) >= REPORT_MAX_BYTES) roll(file);
+        boolean fresh = !Files.exists(file);
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (fresh) out.write(REPORT_HEADER);
+            out.write(lines.toString());
+        }
+    }
+
+    // metrics.csv -> metrics.1.csv -> metrics.2.csv (the oldest is dropped)
+    private static void roll(Path file) throws IOException {
+        Files.deleteIfExists(rolled(file, REPORT_KEEP));
+        for (int i = REPORT_KEEP - 1; i >= 1; i--) {
+            Path older = rolled(file, i);
+            if (Files.exists(older)) Files.move(older, rolled(file, i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(file, rolled(file, 1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static Path rolled(Path file, int generation) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String rolledName = dot < 0 ? name + "." + generation : name.substring(0, dot) + "." + generation + name.substring(dot);
+        return file.resolveSibling(rolledName);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    /** JMX view of a metric. Timers report milliseconds. */
+    public interface MetricMXBean {
+        String getType();
+        long getCount();
+        double getMean();
+        double getMax();
+        double getP50();
+        double getP95();
+        double getP99();
+    }
+
+    public abstract static class Metric implements MetricMXBean {
+        private final String name;
+
+        Metric(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static final class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+
+        Counter(String name) {
+            super(name);
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        @Override public String getType() { return "contador"; }
+        @Override public long getCount() { return value.sum(); }
+        @Override public double getMean() { return 0; }
+        @Override public double getMax() { return 0; }
+        @Override public double getP50() { return 0; }
+        @Override public double getP95() { return 0; }
+        @Override public double getP99() { return 0; }
+    }
+
+    /**
+     * Distribution of values in 1-2-5 buckets (1, 2, 5, 10, 20, 50...); percentiles are the
+     * upper bound of their bucket, so at most 2.5 times the true value and never above the max.
+     */
+    public static class Histogram extends Metric {
+        private static final long[] BOUNDS = bounds();
+
+        private final String type;
+        private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+        private final double scale; // Recorded units per reported unit
+
+        Histogram(String name, String type) {
+            this(name, type, 1);
+        }
+
+        Histogram(String name, String type, double scale) {
+            super(name);
+            this.type = type.isEmpty() ? "histograma" : type;
+            this.scale = scale;
+        }
+
+        private static long[] bounds() {
+            List<Long> bounds = new ArrayList<>();
+            for (long decade = 1; decade <= 1_000_000_000_000L; decade *= 10) {
+                bounds.add(decade);
+                bounds.add(decade * 2);
+                bounds.add(decade * 5);
+            }
+            return bounds.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        public void record(long value) {
+            if (value < 0) value = 0;
+            int bucket = Arrays.binarySearch(BOUNDS, value);
+            buckets.incrementAndGet(bucket >= 0 ? bucket : -bucket - 1);
+            count.increment();
+            sum.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        @Override public String getType() { return type; }
+        @Override public long getCount() { return count.sum(); }
+        @Override public double getMax() { return max.get() / scale; }
+        @Override public double getP50() { return percentile(0.50); }
+        @Override public double getP95() { return percentile(0.95); }
+        @Override public double getP99() { return percentile(0.99); }
+
+        @Override
+        public double getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : sum.sum() / scale / n;
+        }
+
+        private double percentile(double fraction) {
+            long n = count.sum();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(fraction * n);
+            long seen = 0;
+            for (int bucket = 0; bucket < buckets.length(); bucket++) {
+                seen += buckets.get(bucket);
+                if (seen >= rank) {
+                    long bound = bucket < BOUNDS.length ? BOUNDS[bucket] : Long.MAX_VALUE;
+                    return Math.min(bound, max.get()) / scale;
+                }
+            }
+            return max.get() / scale;
+        }
+    }
+
+    /** Histogram of durations; recorded in nanoseconds, reported in milliseconds. */
+    public static final class Timer extends Histogram {
+        Timer(String name) {
+            super(name, "timer", 1e6);
+        }
+
+        public Sample start() {
+            return new Sample(this, System.nanoTime());
+        }
+
+        /** Records the time since start when closed. */
+        public static final class Sample implements AutoCloseable {
+            private final Timer timer;
+            private final long start;
+
+            private Sample(Timer timer, long start) {
+                this.timer = timer;
+                this.start = start;
+            }
+
+            @Override
+            public void close() {
+                timer.record(System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.bunshock.service;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable sorted option list, as handed out by {@link OptionsIndex}.
+ *
+ * Carries a type-ahead index, built on the first search and dropped with the list:
+ * case-folded values sorted for prefix lookups (binary search) and trigram postings
+ * for "contains" lookups, so a search only checks values that share the query's
+ * rarest trigram instead of scanning the whole field.
+ */
+final class OptionList extends AbstractList<String> implements RandomAccess {
+    static final OptionList EMPTY = new OptionList(new String[0]);
+
+    private final String[] values;
+    private volatile SearchIndex search;
+
+    private OptionList(String[] values) {
+        this.values = values;
+    }
+
+    static OptionList sorted(List<String> values) {
+        String[] copy = values.toArray(new String[0]);
+        Arrays.sort(copy);
+        return new OptionList(copy);
+    }
+
+    /**
+     * Copy with value inserted in order.
+     */
+    static OptionList insert(List<String> sorted, String value) {
+        String[] current = sorted instanceof OptionList list ? list.values : sorted.toArray(new String[0]);
+        int pos = Arrays.binarySearch(current, value);
+        if (pos < 0) pos = -pos - 1;
+        String[] copy = new String[current.length + 1];
+        System.arraycopy(current, 0, copy, 0, pos);
+        copy[pos] = value;
+        System.arraycopy(current, pos, copy, pos + 1, current.length - pos);
+        return new OptionList(copy);
+    }
+
+    @Override
+    public String get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Up to limit values matching the query, ignoring case: values starting with it first
+     * (alphabetical), then values containing it (list order). An empty query gives the first values.
+     */
+    List<String> search(String query, int limit) {
+        String q = query == null ? "" : OptionsIndex.fold(query.trim());
+        if (q.isEmpty()) return Collections.unmodifiableList(subList(0, Math.min(limit, values.length)));
+
+        return searchIndex().find(values, q, limit);
+    }
+
+    /**
+     * Builds the search index now (it takes a moment for big fields), e.g. on a background thread.
+     */
+    void prepareSearch() {
+        searchIndex();
+    }
+
+    boolean isSearchReady() {
+        return search != null;
+    }
+
+    private SearchIndex searchIndex() {
+        SearchIndex index = search;
+        if (index == null) {
+            synchronized (this) {
+                if (search == null) search = new SearchIndex(values);
+                index = search;
+            }
+        }
+        return index;
+    }
+
+    private static final class SearchIndex {
+        final String[] folded;  // Same positions as values
+        final int[] byFolded;   // Positions in folded order, for prefix ranges
+        final String[] sortedFolded;
+        // One (trigram hash, position) pair per trigram occurrence, sorted: the positions
+        // of a trigram are one ascending run. A hash collision only adds candidates, and
+        // every candidate is checked with contains()
+        final long[] postings;
+        final int idBits;
+        final long idMask;
+
+        SearchIndex(String[] values) {
+            int n = values.length;
+            folded = new String[n];
+            for (int i = 0; i < n; i++) folded[i] = OptionsIndex.fold(values[i]);
+
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> folded[a].compareTo(folded[b]));
+            byFolded = new int[n];
+            sortedFolded = new String[n];
+            for (int i = 0; i < n; i++) {
+                byFolded[i] = order[i];
+                sortedFolded[i] = folded[order[i]];
+            }
+
+            idBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(n));
+            idMask = (1L << idBits) - 1;
+            int count = 0;
+            for (String s : folded) count += Math.max(0, s.length() - 2);
+            long[] pairs = new long[count];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                String s = folded[i];
+                for (int c = 0; c + 3 <= s.length(); c++) pairs[k++] = (trigram(s, c) << idBits) | i;
+            }
+            Arrays.sort(pairs);
+            // Drop repeats (same trigram twice in one value)
+            int unique = 0;
+            for (int p = 0; p < pairs.length; p++) {
+                if (p == 0 || pairs[p] != pairs[p - 1]) pairs[unique++] = pairs[p];
+            }
+            postings = Arrays.copyOf(pairs, unique);
+        }
+
+        List<String> find(String[] values, String q, int limit) {
+            List<String> result = new ArrayList<>(Math.min(limit, 64));
+            BitSet taken = new BitSet(values.length);
+
+            // 1. Prefix matches: one contiguous range in folded order
+            int from = Arrays.binarySearch(sortedFolded, q);
+            if (from < 0) from = -from - 1;
+            for (int i = from; i < sortedFolded.length && result.size() < limit && sortedFolded[i].startsWith(q); i++) {
+                result.add(values[byFolded[i]]);
+                taken.set(byFolded[i]);
+            }
+            if (result.size() >= limit) return result;
+
+            // 2. Infix matches: candidates from the rarest trigram of the query (short queries scan)
+            int start = 0;
+            int end = values.length;
+            boolean indexed = q.length() >= 3;
+            if (indexed) {
+                end = -1;
+                for (int c = 0; c + 3 <= q.length(); c++) {
+                    long key = trigram(q, c) << idBits;
+                    int lo = lowerBound(key);
+                    int hi = lowerBound(key + idMask + 1);
+                    if (lo == hi) return result; // No value has this trigram
+                    if (end < 0 || hi - lo < end - start) {
+                        start = lo;
+                        end = hi;
+                    }
+                }
+            }
+            for (int k = start; k < end && result.size() < limit; k++) {
+                int i = indexed ? (int) (postings[k] & idMask) : k;
+                if (!taken.get(i) && folded[i].contains(q)) result.add(values[i]);
+            }
+            return result;
+        }
+
+        private int lowerBound(long key) {
+            int lo = 0;
+            int hi = postings.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (postings[mid] < key) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        // Hash of three chars, small enough to leave room for the position in the same long
+        long trigram(String s, int at) {
+            long h = ((s.charAt(at) * 1_000_003L) + s.charAt(at + 1)) * 1_000_003L + s.charAt(at + 2);
+            return (h ^ (h >>> 29)) & (-1L >>> (1 + idBits));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.bunshock.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Lookup tables over options.json, built once per load.
+ *
+ * Per field: every value sorted, the values visible for each parent (case-folded key)
+ * and a folded set for duplicate checks. Lists are immutable {@link OptionList}s; adding an
+ * option replaces the affected lists, so readers never see a half-updated list.
+ */
+final class OptionsIndex {
+    private final Map<String, FieldOptions> fields = new ConcurrentHashMap<>();
+    private final Map<String, String> dependencies = new HashMap<>(); // field -> "dependsOn" (fixed per load)
+
+    static OptionsIndex build(JsonNode root) {
+        OptionsIndex index = new OptionsIndex();
+        if (root == null || !root.isObject()) return index;
+
+        root.fields().forEachRemaining(field -> {
+            String dependsOn = field.getValue().path("dependsOn").asText(null);
+            if (dependsOn != null) index.dependencies.put(field.getKey(), dependsOn);
+            JsonNode options = field.getValue().path("options");
+            if (options.isArray()) {
+                index.fields.put(field.getKey(), FieldOptions.build(options));
+            }
+        });
+        return index;
+    }
+
+    /**
+     * Same result as scanning the options array: plain values always match,
+     * objects match when parentValue is empty or listed in their "parents".
+     */
+    List<String> get(String fieldName, String parentValue) {
+        FieldOptions options = fields.get(fieldName);
+        if (options == null) return Collections.emptyList();
+        if (parentValue == null || parentValue.isEmpty()) return options.all;
+        return options.byParent.getOrDefault(fold(parentValue), options.plain);
+    }
+
+    boolean hasField(String fieldName) {
+        return fields.containsKey(fieldName) || dependencies.containsKey(fieldName);
+    }
+
+    /** The field this one depends on, or null. */
+    String dependency(String fieldName) {
+        return dependencies.get(fieldName);
+    }
+
+    boolean contains(String fieldName, String value) {
+        FieldOptions options = fields.get(fieldName);
+        return options != null && options.folded.contains(fold(value));
+    }
+
+    /**
+     * Mirrors what OptionsManager appends to the JSON: a plain value when the field
+     * has no dependency, otherwise an object with the given parent (if any).
+     */
+    void add(String fieldName, String value, String parentValue, boolean dependent) {
+        FieldOptions options = fields.computeIfAbsent(fieldName, k -> new FieldOptions());
+        synchronized (options) {
+            options.folded.add(fold(value));
+            options.all = insert(options.all, value);
+            if (!dependent) {
+                options.plain = insert(options.plain, value);
+                options.byParent.replaceAll((parent, list) -> insert(list, value));
+            } else if (parentValue != null && !parentValue.isEmpty()) {
+                options.byParent.compute(fold(parentValue),
+                        (parent, list) -> insert(list == null ? options.plain : list, value));
+            }
+        }
+    }
+
+    // Char-by-char fold, so equal keys are exactly the strings equalsIgnoreCase accepts
+    static String fold(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    private static List<String> insert(List<String> sorted, String value) {
+        return OptionList.insert(sorted, value);
+    }
+
+    private static List<String> sorted(List<String> values) {
+        return OptionList.sorted(values);
+    }
+
+    private static final class FieldOptions {
+        volatile List<String> all = OptionList.EMPTY;
+        volatile List<String> plain = OptionList.EMPTY; // Values without parents (always visible)
+        final Map<String, List<String>> byParent = new ConcurrentHashMap<>();
+        final Set<String> folded = ConcurrentHashMap.newKeySet();
+
+        static FieldOptions build(JsonNode options) {
+            FieldOptions result = new FieldOptions();
+            List<String> all = new ArrayList<>();
+            List<String> plain = new ArrayList<>();
+            Map<String, List<String>> byParent = new HashMap<>();
+
+            // 1. Split plain values from parented ones
+            for (JsonNode opt : options) {
+                if (opt.isTextual()) {
+                    all.add(opt.asText());
+                    plain.add(opt.asText());
+                    result.folded.add(fold(opt.asText()));
+                } else if (opt.isObject()) {
+                    String val = opt.path("value").asText();
+                    all.add(val);
+                    result.folded.add(fold(val));
+
+                    Set<String> parents = new LinkedHashSet<>();
+                    for (JsonNode parent : opt.path("parents")) {
+                        parents.add(fold(parent.asText()));
+                    }
+                    for (String parent : parents) {
+                        byParent.computeIfAbsent(parent, k -> new ArrayList<>()).add(val);
+                    }
+                }
+            }
+
+            // 2. Sort once; each parent list also carries the plain values
+            result.all = sorted(all);
+            result.plain = sorted(plain);
+            for (Map.Entry<String, List<String>> entry : byParent.entrySet()) {
+                entry.getValue().addAll(plain);
+                result.byParent.put(entry.getKey(), sorted(entry.getValue()));
+            }
+            return result;
+        }
+    }
+}
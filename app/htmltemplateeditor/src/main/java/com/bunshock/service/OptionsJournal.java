@@ -0,0 +1,224 @@
+package com.bunshock.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Append-only change log for options.json, one file per workstation:
+ * options.json.&lt;client&gt;.journal next to the snapshot.
+ *
+ * Each line is one added option as JSON. A client only ever appends to its own journal,
+ * so concurrent saves never overwrite each other. Readers apply the snapshot and then
+ * every journal; entries that are already present are skipped, so replaying twice is harmless.
+ *
+ * Compaction is per client: each workstation merges only its own journal into the snapshot
+ * (under {@link #tryLock}); the journals of other clients stay until their owners compact them.
+ */
+final class OptionsJournal {
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final long STALE_LOCK_MILLIS = 2 * 60 * 1000;
+    private static final long LOCK_REFRESH_MILLIS = 30 * 1000;
+
+    // Keeps held locks fresh while a slow compaction runs
+    private static final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "options-lock");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private OptionsJournal() {}
+
+    static Path journalFile(Path snapshot, String clientId) {
+        return snapshot.resolveSibling(snapshot.getFileName() + "." + clientId + ".journal");
+    }
+
+    /**
+     * All journals of all clients for the given snapshot.
+     */
+    static List<Path> list(Path snapshot) throws IOException {
+        List<Path> journals = new ArrayList<>();
+        String glob = globEscape(snapshot.getFileName().toString()) + ".*.journal";
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(snapshot.toAbsolutePath().getParent(), glob)) {
+            for (Path journal : dir) journals.add(journal);
+        }
+        return journals;
+    }
+
+    /**
+     * Appends the entries with a single write.
+     */
+    static void append(Path journal, List<Entry> entries) throws IOException {
+        Files.write(journal, encode(entries), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Replaces the whole file with the given entries (deletes it when there are none).
+     */
+    static void rewrite(Path journal, List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            Files.deleteIfExists(journal);
+        } else {
+            OptionsPersister.writeAtomically(journal, encode(entries));
+        }
+    }
+
+    static List<Entry> readAll(Path journal) throws IOException {
+        return Files.exists(journal) ? read(journal, 0).entries : new ArrayList<>();
+    }
+
+    /**
+     * Reads complete lines starting at the given byte offset.
+     * A line still being written (no '\n' yet) is left for the next read.
+     */
+    static Tail read(Path journal, long offset) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        byte[] bytes;
+        try (SeekableByteChannel channel = Files.newByteChannel(journal);
+             InputStream in = Channels.newInputStream(channel.position(offset))) {
+            bytes = in.readAllBytes();
+        }
+
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            lineStart = i + 1;
+            if (line.isBlank()) continue;
+            try {
+                JsonNode node = mapper.readTree(line);
+                entries.add(new Entry(node.path("field").asText(), node.path("value").asText(),
+                        node.path("parent").isTextual() ? node.path("parent").asText() : null));
+            } catch (IOException e) {
+                // Damaged line (e.g. an interrupted write): skip it, the rest is still valid
+            }
+        }
+        return new Tail(entries, offset + lineStart);
+    }
+
+    /**
+     * Empties a journal after its entries were merged into the snapshot.
+     */
+    static void truncate(Path journal) throws IOException {
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+        }
+    }
+
+    /**
+     * Cross-workstation lock around compaction (lock file created exclusively).
+     * Returns null if another client holds it.
+     *
+     * While held, the lock file's time is refreshed every 30 seconds, so only a lock left
+     * by a client that died (not touched for two minutes) is considered abandoned and removed.
+     */
+    static Lock tryLock(Path snapshot) throws IOException {
+        Path file = snapshot.resolveSibling(snapshot.getFileName() + ".lock");
+        String token = UUID.randomUUID().toString();
+        try {
+            Files.write(file, token.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            return new Lock(file, token);
+        } catch (FileAlreadyExistsException e) {
+            if (System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > STALE_LOCK_MILLIS) {
+                Files.deleteIfExists(file);
+            }
+            return null;
+        }
+    }
+
+    private static byte[] encode(List<Entry> entries) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Entry entry : entries) {
+            ObjectNode node = mapper.createObjectNode();
+            node.put("field", entry.field);
+            node.put("value", entry.value);
+            if (entry.parent != null) node.put("parent", entry.parent);
+            lines.append(mapper.writeValueAsString(node)).append('\n');
+        }
+        return lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String globEscape(String name) {
+        return name.replaceAll("([*?\\[\\]{}\\\\])", "\\\\$1");
+    }
+
+    /** One added option. */
+    static final class Entry {
+        final String field;
+        final String value;
+        final String parent;
+
+        Entry(String field, String value, String parent) {
+            this.field = field;
+            this.value = value;
+            this.parent = parent;
+        }
+    }
+
+    /** A held compaction lock; close to release it. */
+    static final class Lock implements AutoCloseable {
+        private final Path file;
+        private final String token;
+        private final ScheduledFuture<?> refresh;
+
+        private Lock(Path file, String token) {
+            this.file = file;
+            this.token = token;
+            this.refresh = heartbeat.scheduleWithFixedDelay(() -> {
+                try {
+                    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                } catch (IOException e) {
+                    // Share unreachable: the next refresh tries again; isHeld() tells before writing
+                }
+            }, LOCK_REFRESH_MILLIS, LOCK_REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Still ours: not removed as abandoned and taken by another client meanwhile.
+         */
+        boolean isHeld() {
+            try {
+                return token.equals(Files.readString(file, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            refresh.cancel(false);
+            if (isHeld()) Files.deleteIfExists(file);
+        }
+    }
+
+    /** Entries read from a journal and the offset to continue from. */
+    static final class Tail {
+        final List<Entry> entries;
+        final long offset;
+
+        Tail(List<Entry> entries, long offset) {
+            this.entries = entries;
+            this.offset = offset;
+        }
+    }
+}
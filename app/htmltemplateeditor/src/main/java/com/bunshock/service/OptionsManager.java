@@ -3,6 +3,7 @@ package com.bunshock.service;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
@@ -12,7 +13,10 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.bunshock.config.AppConfig;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -21,23 +25,63 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
 public class OptionsManager {
     private static OptionsManager instance;
     private final ObjectMapper mapper = new ObjectMapper();
-    private JsonNode rootNode;
+    private JsonNode rootNode = mapper.createObjectNode();
+    private volatile OptionsIndex index = OptionsIndex.build(null);
+    private volatile boolean loaded;
     private final StringProperty lastSyncTime = new SimpleStringProperty("Última sincronización: N/A");
-    
+
     // BACKUP FILE: Always saved locally in the app folder
     private final File localBackupFile = new File("local_backup_options.json");
-    
+    private final Path serverPath = Paths.get(AppConfig.getBasePath(), AppConfig.getOptionsFileName());
+
     // UI STATUS: Bind this to your label in MainView
     private final StringProperty connectionStatus = new SimpleStringProperty("Intentando sincronización...");
 
+    // All reads/writes of the options files happen on this one thread, in order
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "options-io");
+        t.setDaemon(true);
+        return t;
+    });
+    private final OptionsSync sync = new OptionsSync(mapper);
+
+    // Added options go to this workstation's journal next to options.json; compacted into it from time to time
+    private static final long COMPACT_BYTES = 64 * 1024;
+    private final Path journalFile = OptionsJournal.journalFile(serverPath, AppConfig.getClientId());
+
+    // Options added here that the server does not have yet; replayed on top of every server read.
+    // Also kept in a local file so they survive a restart while offline.
+    private final List<OptionsJournal.Entry> unsynced = new ArrayList<>();
+    private final Path pendingFile = Paths.get("local_pending_options.journal");
+
+    // Saving happens off the FX thread; this counts changes still waiting to be written
+    private final ReadOnlyIntegerWrapper pendingChanges = new ReadOnlyIntegerWrapper(0);
+    private final OptionsPersister persister = new OptionsPersister(io, this::serialize, localBackupFile.toPath(),
+            this::pushToServer, count -> Platform.runLater(() -> pendingChanges.set(count)));
+
     private OptionsManager() {
-        loadOptionsWithFallback();
+        // 1. Initial Check: If we have a backup, set the timestamp to the file's last modified date
+        if (localBackupFile.exists()) {
+            long lastModified = localBackupFile.lastModified();
+            String savedTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(lastModified), ZoneId.systemDefault())
+                                .format(DateTimeFormatter.ofPattern("dd/MM HH:mm"));
+            lastSyncTime.set(savedTime);
+        }
+
+        // 2. Options added offline in a previous session
+        io.execute(this::restorePending);
+
+        // 3. First sync now, then periodically in the background
+        long interval = Math.max(1, AppConfig.getSyncIntervalSeconds());
+        io.scheduleWithFixedDelay(this::syncNow, 0, interval, TimeUnit.SECONDS);
     }
 
     public static synchronized OptionsManager getInstance() {
@@ -53,51 +97,151 @@ public class OptionsManager {
     }
 
     /**
-     * MAIN SYNC LOGIC:
-     * Tries Server -> If fails, tries Local Backup -> If fails, creates empty.
+     * Requests a sync with the server ("Sincronizar ahora"). Returns immediately.
      */
     public void loadOptionsWithFallback() {
-        // 1. Initial Check: If we have a backup, set the timestamp to the file's last modified date
-        if (localBackupFile.exists()) {
-            long lastModified = localBackupFile.lastModified();
-            String savedTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(lastModified), ZoneId.systemDefault())
-                                .format(DateTimeFormatter.ofPattern("dd/MM HH:mm"));
-            lastSyncTime.set(savedTime);
+        io.execute(this::syncNow);
+    }
+
+    /**
+     * MAIN SYNC LOGIC (options I/O thread):
+     * Server (only if it changed) -> If fails, Local Backup on first load -> If fails, empty.
+     */
+    private void syncNow() {
+        FlightEvents.OptionsSync event = new FlightEvents.OptionsSync();
+        event.begin();
+        try (Metrics.Timer.Sample timing = Metrics.time("options.sync")) {
+            if (!Files.exists(serverPath)) throw new NoSuchFileException(serverPath.toString());
+
+            OptionsSync.Changes changes = sync.poll(serverPath);
+            event.bytes = sync.getPolledBytes();
+            if (changes != null) {
+                event.changed = true;
+                event.additions = changes.additions.size();
+                apply(changes.snapshot, changes.additions, true);
+            }
+            compactIfNeeded();
+
+            updateSuccessfulSyncTime();
+            updateStatus("Online (Servidor)");
+        } catch (Exception e) {
+            Metrics.getInstance().counter("options.sync.errors").increment();
+            event.error = e.toString();
+            if (!loaded) {
+                loadFromBackup();
+            } else {
+                // Keep what is in memory; it is newer than the backup
+                updateStatus("Offline (Copia local)");
+            }
+        } finally {
+            event.commit();
         }
+    }
 
-        new Thread(() -> {
-            try {
-                Path serverPath = Paths.get(AppConfig.getBasePath(), AppConfig.getOptionsFileName());
-                
-                if (Files.exists(serverPath)) {
-                    // ... (Load JSON as before) ...
-                    
-                    // 2. Overwrite backup (This updates the file's 'Last Modified' timestamp on Windows)
-                    mapper.writerWithDefaultPrettyPrinter().writeValue(localBackupFile, rootNode);
-                    
-                    // 3. Update UI with the NEW time
-                    updateSuccessfulSyncTime();
-                    updateStatus("Online (Servidor)");
-                } else {
-                    throw new IOException();
+    /**
+     * Applies a new snapshot (or, if null, keeps the current data) plus journal entries,
+     * then replays the options added here that the server does not have yet.
+     */
+    private void apply(JsonNode snapshot, List<OptionsJournal.Entry> additions, boolean fromServer) throws IOException {
+        if (snapshot != null && !snapshot.isObject()) throw new IOException("Formato inválido: " + serverPath);
+
+        synchronized (this) {
+            ObjectNode root = snapshot != null ? (ObjectNode) snapshot : (ObjectNode) rootNode;
+            OptionsIndex merged = snapshot != null ? OptionsIndex.build(root) : index;
+            for (OptionsJournal.Entry entry : additions) {
+                if (!merged.contains(entry.field, entry.value)) append(root, merged, entry);
+            }
+            for (OptionsJournal.Entry entry : unsynced) {
+                if (!merged.contains(entry.field, entry.value)) append(root, merged, entry);
+            }
+            rootNode = root;
+            index = merged;
+            loaded = true;
+        }
+
+        if (fromServer) {
+            // The server content changed: refresh the backup (also updates its 'Last Modified' time)
+            OptionsPersister.writeAtomically(localBackupFile.toPath(), serialize());
+        }
+    }
+
+    private void restorePending() {
+        try {
+            List<OptionsJournal.Entry> pending = OptionsJournal.readAll(pendingFile);
+            if (pending.isEmpty()) return;
+            synchronized (this) {
+                unsynced.addAll(pending);
+            }
+            for (int i = 0; i < pending.size(); i++) persister.changed();
+        } catch (IOException e) {
+            System.err.println("No se pudieron leer las opciones pendientes: " + e.getMessage());
+        }
+    }
+
+    // Persister callback (I/O thread): one small append instead of rewriting options.json
+    private void pushToServer() throws IOException {
+        List<OptionsJournal.Entry> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(unsynced);
+        }
+        if (batch.isEmpty()) return;
+
+        // 1. Locally first, in case the server is not reachable
+        OptionsJournal.rewrite(pendingFile, batch);
+
+        // 2. This workstation's journal on the server
+        OptionsJournal.append(journalFile, batch);
+
+        List<OptionsJournal.Entry> remaining;
+        synchronized (this) {
+            unsynced.subList(0, batch.size()).clear(); // addOption only appends, so these are still first
+            remaining = new ArrayList<>(unsynced);
+        }
+        OptionsJournal.rewrite(pendingFile, remaining);
+        compactIfNeeded();
+    }
+
+    /**
+     * Merges this workstation's journal (only ours: every client compacts its own) into
+     * options.json once it has grown, under a lock file so two workstations never rewrite
+     * the snapshot at the same time.
+     */
+    private void compactIfNeeded() {
+        try {
+            if (!Files.exists(journalFile) || Files.size(journalFile) < COMPACT_BYTES) return;
+            OptionsJournal.Lock lock = OptionsJournal.tryLock(serverPath);
+            if (lock == null) return; // Someone else is compacting; next time
+
+            try (lock) {
+                // 1. Fresh snapshot (another workstation may have compacted since our last read)
+                JsonNode current = Files.exists(serverPath) ? mapper.readTree(serverPath.toFile()) : null;
+                ObjectNode root = current != null && current.isObject() ? (ObjectNode) current : mapper.createObjectNode();
+                OptionsIndex rootIndex = OptionsIndex.build(root);
+
+                // 2. Our entries on top
+                for (OptionsJournal.Entry entry : OptionsJournal.readAll(journalFile)) {
+                    if (!rootIndex.contains(entry.field, entry.value)) append(root, rootIndex, entry);
                 }
-            } catch (Exception e) {
-                loadFromBackup();
+
+                // 3. Snapshot first, then empty the journal (replaying an entry twice is harmless).
+                //    If the lock was lost meanwhile, another client may be writing: leave it for next time
+                byte[] merged = mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(root);
+                if (!lock.isHeld()) return;
+                OptionsPersister.writeAtomically(serverPath, merged);
+                OptionsJournal.truncate(journalFile);
             }
-        }).start();
+        } catch (IOException e) {
+            System.err.println("No se pudo compactar el diario de opciones: " + e.getMessage());
+        }
     }
 
     private void loadFromBackup() {
         try {
-            if (localBackupFile.exists()) {
-                rootNode = mapper.readTree(localBackupFile);
-                // We do NOT call updateSuccessfulSyncTime here.
-                // The label will continue showing the time of the last TRUE server sync.
-                updateStatus("Offline (Copia local)");
-            } else {
-                rootNode = mapper.createObjectNode();
-                updateStatus("Offline (Sin datos)");
-            }
+            JsonNode backup = localBackupFile.exists() ? mapper.readTree(localBackupFile) : null;
+            apply(backup != null && backup.isObject() ? backup : mapper.createObjectNode(), Collections.emptyList(), false);
+            // We do NOT call updateSuccessfulSyncTime here.
+            // The label will continue showing the time of the last TRUE server sync.
+            updateStatus(backup != null ? "Offline (Copia local)" : "Offline (Sin datos)");
         } catch (IOException e) {
             updateStatus("Error de lectura");
         }
@@ -118,89 +262,129 @@ public class OptionsManager {
         return connectionStatus;
     }
 
-    private void save() {
-        try {
-            // Save to the LOCAL backup.
-            mapper.writerWithDefaultPrettyPrinter().writeValue(localBackupFile, rootNode);
-            
-            // Try to save to server too if online
-            Path serverPath = Paths.get(AppConfig.getBasePath(), AppConfig.getOptionsFileName());
-            mapper.writerWithDefaultPrettyPrinter().writeValue(serverPath.toFile(), rootNode);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Number of added options not yet written to disk.
+     */
+    public ReadOnlyIntegerProperty pendingChangesProperty() {
+        return pendingChanges.getReadOnlyProperty();
+    }
+
+    /**
+     * Writes pending changes before the app exits.
+     */
+    public void flush() {
+        persister.flush();
+        io.shutdownNow();
+    }
+
+    // Runs on the I/O thread; the lock keeps addOption from changing the tree mid-write
+    private synchronized byte[] serialize() throws IOException {
+        return mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(rootNode);
     }
 
+    /**
+     * Sorted options for a field, filtered by parent value. The list is shared and read-only.
+     */
     public List<String> getOptions(String fieldName, String parentValue) {
-        if (rootNode == null) return new ArrayList<>();
-        JsonNode fieldNode = rootNode.path(fieldName);
-        if (fieldNode.isMissingNode()) return new ArrayList<>();
-
-        JsonNode options = fieldNode.path("options");
-        List<String> results = new ArrayList<>();
-
-        if (options.isArray()) {
-            for (JsonNode opt : options) {
-                if (opt.isTextual()) {
-                    results.add(opt.asText());
-                } else if (opt.isObject()) {
-                    String val = opt.path("value").asText();
-                    if (parentValue == null || parentValue.isEmpty()) {
-                        results.add(val);
-                    } else {
-                        JsonNode parents = opt.path("parents");
-                        boolean match = StreamSupport.stream(parents.spliterator(), false)
-                                .anyMatch(p -> p.asText().equalsIgnoreCase(parentValue));
-                        if (match) results.add(val);
-                    }
-                }
+        FlightEvents.OptionsLookup event = new FlightEvents.OptionsLookup();
+        event.begin();
+        List<String> options = index.get(fieldName, parentValue);
+        commit(event, fieldName, parentValue, null, options.size());
+        return options;
+    }
+
+    /**
+     * Type-ahead: up to limit options of the field (filtered by parent value) that start with
+     * or contain the query, ignoring case. Prefix matches come first.
+     */
+    public List<String> search(String fieldName, String parentValue, String query, int limit) {
+        FlightEvents.OptionsLookup event = new FlightEvents.OptionsLookup();
+        event.begin();
+        List<String> options = index.get(fieldName, parentValue);
+        List<String> found = options instanceof OptionList list ? list.search(query, limit) : Collections.emptyList();
+        commit(event, fieldName, parentValue, query, found.size());
+        return found;
+    }
+
+    private static void commit(FlightEvents.OptionsLookup event, String field, String parentValue, String query, int results) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.field = field;
+            event.parentValue = parentValue;
+            event.query = query;
+            event.results = results;
+            event.commit();
+        }
+    }
+
+    /**
+     * Builds the search index of a field on the options thread, so the first keystroke does not wait.
+     */
+    public void prepareSearch(String fieldName, String parentValue) {
+        List<String> options = index.get(fieldName, parentValue);
+        if (options instanceof OptionList list && !list.isSearchReady()) {
+            try {
+                io.execute(list::prepareSearch);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the first search builds it instead
             }
         }
-        Collections.sort(results);
-        return results;
     }
 
-    public void addOption(String fieldName, String newValue, String parentValue) {
-        ObjectNode fieldNode = (ObjectNode) rootNode.path(fieldName);
-        if (fieldNode.isMissingNode()) {
-            fieldNode = ((ObjectNode) rootNode).putObject(fieldName);
+    /**
+     * Adds the option in memory and returns; it is appended to the journal in the background.
+     */
+    public synchronized void addOption(String fieldName, String newValue, String parentValue) {
+        if (index.contains(fieldName, newValue)) return;
+
+        OptionsJournal.Entry addition = new OptionsJournal.Entry(fieldName, newValue, parentValue);
+        append((ObjectNode) rootNode, index, addition);
+        unsynced.add(addition);
+        persister.changed();
+    }
+
+    private static void append(ObjectNode root, OptionsIndex index, OptionsJournal.Entry addition) {
+        ObjectNode fieldNode;
+        if (root.path(addition.field).isObject()) {
+            fieldNode = (ObjectNode) root.path(addition.field);
+        } else {
+            fieldNode = root.putObject(addition.field);
+        }
+        if (!fieldNode.path("options").isArray()) {
             fieldNode.putArray("options");
         }
 
         ArrayNode optionsArray = (ArrayNode) fieldNode.path("options");
         String dependency = fieldNode.path("dependsOn").asText(null);
 
-        boolean exists = StreamSupport.stream(optionsArray.spliterator(), false)
-            .anyMatch(node -> {
-                if (node.isTextual()) return node.asText().equalsIgnoreCase(newValue);
-                return node.path("value").asText().equalsIgnoreCase(newValue);
-            });
-
-        if (exists) return;
-
         if (dependency == null) {
-            optionsArray.add(newValue);
+            optionsArray.add(addition.value);
         } else {
             ObjectNode newOpt = optionsArray.addObject();
-            newOpt.put("value", newValue);
+            newOpt.put("value", addition.value);
             ArrayNode parents = newOpt.putArray("parents");
-            if (parentValue != null && !parentValue.isEmpty()) {
-                parents.add(parentValue);
+            if (addition.parent != null && !addition.parent.isEmpty()) {
+                parents.add(addition.parent);
             }
         }
-        save();
+        index.add(addition.field, addition.value, addition.parent, dependency != null);
+    }
+
+    // Current lookup tables, for readers that check many values at once (imports)
+    OptionsIndex index() {
+        return index;
     }
 
     public String getDependencyField(String fieldName) {
-        return rootNode.path(fieldName).path("dependsOn").asText(null);
+        return index.dependency(fieldName);
     }
 
-    public boolean hasOptions(String fieldName) {
-        // Check if rootNode exists and has the field as a key
-        return rootNode != null && rootNode.has(fieldName);
+    public synchronized boolean hasOptions(String fieldName) {
+        // Check if rootNode has the field as a key
+        return rootNode.has(fieldName);
     }
 
     public StringProperty lastSyncTimeProperty() {
         return lastSyncTime;
     }
-}
\ No newline at end of file
+}
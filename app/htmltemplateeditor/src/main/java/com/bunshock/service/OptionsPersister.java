@@ -0,0 +1,147 @@
+package com.bunshock.service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Write-behind saving for the options.
+ *
+ * Changes are only counted on the caller's thread. The options I/O thread handles a whole
+ * burst of changes at once: one snapshot to the local backup (temp file + rename, so it is
+ * never half written), then the server push. If the server is unreachable the push is
+ * retried later and the changes stay pending.
+ */
+final class OptionsPersister {
+    private static final long COALESCE_MILLIS = 500;
+    private static final long RETRY_MILLIS = 30000;
+
+    /** Sends changes to the server; throws if it is unreachable. */
+    interface ServerPush {
+        void push() throws IOException;
+    }
+
+    private final Callable<byte[]> snapshot;
+    private final Path backupFile;
+    private final ServerPush serverPush;
+    private final IntConsumer onPendingChanged;
+    private final ScheduledExecutorService executor;
+
+    // Change counters: requested, in the backup, on the server
+    private final AtomicLong changes = new AtomicLong();
+    private long backedUp;
+    private volatile long written;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * @param executor single thread that does all reads/writes of the options files
+     * @param snapshot serializes the current state; called on that thread
+     * @param onPendingChanged receives the number of changes not yet on the server
+     */
+    OptionsPersister(ScheduledExecutorService executor, Callable<byte[]> snapshot, Path backupFile,
+                     ServerPush serverPush, IntConsumer onPendingChanged) {
+        this.executor = executor;
+        this.snapshot = snapshot;
+        this.backupFile = backupFile;
+        this.serverPush = serverPush;
+        this.onPendingChanged = onPendingChanged;
+    }
+
+    /**
+     * Records one change. Returns immediately; the write happens a moment later,
+     * together with any other change made in the meantime.
+     */
+    void changed() {
+        long requested = changes.incrementAndGet();
+        onPendingChanged.accept((int) (requested - written));
+        schedule(COALESCE_MILLIS);
+    }
+
+    /**
+     * Writes everything still pending. Blocks until done.
+     */
+    void flush() {
+        try {
+            executor.submit(() -> {
+                write();
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("No se pudieron guardar las opciones: " + e.getCause().getMessage());
+        }
+    }
+
+    private void schedule(long delayMillis) {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::writeOrRetry, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void writeOrRetry() {
+        FlightEvents.OptionsSave event = new FlightEvents.OptionsSave();
+        event.begin();
+        try (Metrics.Timer.Sample timing = Metrics.time("options.save")) {
+            event.backupBytes = write();
+        } catch (Exception e) {
+            event.error = e.toString();
+            Metrics.getInstance().counter("options.save.errors").increment();
+            System.err.println("No se pudieron guardar las opciones, reintentando: " + e.getMessage());
+            schedule(RETRY_MILLIS);
+        } finally {
+            event.commit();
+        }
+    }
+
+    // Returns the size of the backup written (0 if it was up to date)
+    private long write() throws Exception {
+        // Changes made after this point get their own write
+        scheduled.set(false);
+        long target = changes.get();
+        if (target == written) return 0;
+
+        // 1. Local backup, once per batch even if the server push has to be retried
+        long backupBytes = 0;
+        if (backedUp < target) {
+            byte[] bytes = snapshot.call();
+            writeAtomically(backupFile, bytes);
+            backupBytes = bytes.length;
+            backedUp = target;
+        }
+
+        // 2. Server
+        serverPush.push();
+        written = target;
+        onPendingChanged.accept((int) (changes.get() - written));
+        return backupBytes;
+    }
+
+    /**
+     * Writes through a uniquely named temp file next to the target, then renames it over the
+     * target, so two workstations saving to the share at once never share a temp file.
+     */
+    static void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName() + ".", ".tmp");
+        try {
+            Files.write(temp, bytes);
+            try {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp); // Only left behind if the write or rename failed
+        }
+    }
+}
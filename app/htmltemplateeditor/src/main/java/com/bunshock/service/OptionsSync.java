@@ -0,0 +1,134 @@
+package com.bunshock.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Change detection for the server copy of options.json and its journals.
+ *
+ * 1. Snapshot with the same size and last-modified time as the last read: not transferred.
+ *    Otherwise it is read into a JsonNode tree from the stream (no intermediate String)
+ *    while its SHA-256 is computed; if the content turns out to be identical (e.g. only
+ *    touched) the tree is discarded. It is a full tree, not a token-by-token parse, because
+ *    OptionsManager keeps it: new options are appended to it and it is written back as the
+ *    backup and the compacted snapshot.
+ * 2. Journals: only the bytes appended since the last read are fetched. When the snapshot
+ *    changes (someone compacted), all journals are read again from the start.
+ */
+final class OptionsSync {
+    private final ObjectMapper mapper;
+
+    private long lastSize = -1;
+    private long lastModified = -1;
+    private byte[] lastHash;
+    private final Map<Path, Long> offsets = new HashMap<>();
+    private long polledBytes;
+
+    OptionsSync(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Returns what changed since the last call, or null if nothing did.
+     */
+    synchronized Changes poll(Path snapshot) throws IOException {
+        polledBytes = 0;
+        JsonNode base = readIfChanged(snapshot);
+        List<Path> journals = OptionsJournal.list(snapshot);
+
+        // A journal that shrank was compacted into the snapshot: start over from it
+        if (base == null) {
+            for (Path journal : journals) {
+                if (Files.size(journal) < offsets.getOrDefault(journal, 0L)) {
+                    lastSize = -1;
+                    lastHash = null;
+                    base = readIfChanged(snapshot);
+                    break;
+                }
+            }
+        }
+        if (base != null) offsets.clear();
+
+        List<OptionsJournal.Entry> additions = new ArrayList<>();
+        for (Path journal : journals) {
+            long offset = offsets.getOrDefault(journal, 0L);
+            if (Files.size(journal) == offset) continue;
+            OptionsJournal.Tail tail = OptionsJournal.read(journal, offset);
+            additions.addAll(tail.entries);
+            polledBytes += tail.offset - offset;
+            offsets.put(journal, tail.offset);
+        }
+
+        if (base == null && additions.isEmpty()) return null;
+        return new Changes(base, additions);
+    }
+
+    /**
+     * Returns the file as a tree, or null if it has not changed since the last call.
+     */
+    synchronized JsonNode readIfChanged(Path file) throws IOException {
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        if (size == lastSize && modified == lastModified) return null;
+
+        MessageDigest digest = sha256();
+        JsonNode root;
+        try (InputStream in = new DigestInputStream(new BufferedInputStream(Files.newInputStream(file)), digest);
+             JsonParser parser = mapper.getFactory().createParser(in)) {
+            root = mapper.readTree(parser);
+            // Drain trailing whitespace so the hash covers the whole file
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        byte[] hash = digest.digest();
+        polledBytes += size;
+
+        boolean sameContent = Arrays.equals(hash, lastHash);
+        lastSize = size;
+        lastModified = modified;
+        lastHash = hash;
+        return sameContent ? null : root;
+    }
+
+    /** Bytes read from the share by the last poll (snapshot and journal tails). */
+    synchronized long getPolledBytes() {
+        return polledBytes;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * New snapshot (null if unchanged) and journal entries to apply on top of it,
+     * or on top of the current data when the snapshot did not change.
+     */
+    static final class Changes {
+        final JsonNode snapshot;
+        final List<OptionsJournal.Entry> additions;
+
+        Changes(JsonNode snapshot, List<OptionsJournal.Entry> additions) {
+            this.snapshot = snapshot;
+            this.additions = additions;
+        }
+    }
+}
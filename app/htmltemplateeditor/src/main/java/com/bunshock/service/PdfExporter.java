@@ -0,0 +1,65 @@
+package com.bunshock.service;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.jsoup.nodes.Document;
+
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.util.XRLog;
+
+/**
+ * Writes reports straight to PDF with a pure-Java renderer: no JavaFX, no WebView, no printer.
+ * Safe to call from several threads at once (each call builds its own renderer).
+ *
+ * The template HTML does not need to be XHTML; it is parsed like a browser would (jsoup)
+ * before layout. Relative paths (e.g. '../logo.jpg') resolve from the template folder.
+ */
+public class PdfExporter {
+
+    static {
+        // The renderer logs every resource and font at INFO level
+        XRLog.setLoggingEnabled(false);
+    }
+
+    private final ReportGenerator generator = new ReportGenerator();
+
+    public void export(CompiledTemplate template, Map<String, String> simpleData, List<Map<String, String>> items,
+                       File templateFolder, Path target) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            export(template, simpleData, items, templateFolder, out);
+        }
+    }
+
+    public void export(CompiledTemplate template, Map<String, String> simpleData, List<Map<String, String>> items,
+                       File templateFolder, OutputStream out) throws IOException {
+        // 1. Same HTML as printing
+        String html = generator.render(template, simpleData, items);
+
+        // 2. Browser-style parse, so unclosed tags and HTML5 markup are fine
+        String baseUri = templateFolder.getAbsoluteFile().toURI().toString();
+        Document document = Jsoup.parse(html, baseUri);
+
+        // 3. Layout on A4, like the print path
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.useFastMode();
+        builder.useDefaultPageSize(210, 297, PdfRendererBuilder.PageSizeUnits.MM);
+        builder.withW3cDocument(new W3CDom().fromJsoup(document), baseUri);
+        builder.toStream(out);
+        try {
+            builder.run();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("No se pudo generar el PDF: " + e.getMessage(), e);
+        }
+    }
+}
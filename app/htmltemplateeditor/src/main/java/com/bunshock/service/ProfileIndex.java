@@ -0,0 +1,95 @@
+package com.bunshock.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bunshock.model.ProfileSummary;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Local file listing the known profiles (path, name, template, last-modified time and size),
+ * so the selector can be filled at startup without reading every profile from the share.
+ * Thread-safe; saved only when {@link #save} is called.
+ */
+public class ProfileIndex {
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Path file;
+    private final Map<String, ProfileSummary> entries = new LinkedHashMap<>();
+
+    private ProfileIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the index; a missing or damaged file gives an empty index (it is only a cache).
+     */
+    public static ProfileIndex load(Path file) {
+        ProfileIndex index = new ProfileIndex(file);
+        if (!Files.exists(file)) return index;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<ProfileSummary> saved = gson.fromJson(reader, new TypeToken<List<ProfileSummary>>() {}.getType());
+            if (saved != null) {
+                for (ProfileSummary summary : saved) {
+                    if (summary != null && summary.getPath() != null) index.entries.put(summary.getPath(), summary);
+                }
+            }
+        } catch (IOException | JsonParseException e) {
+            System.err.println("Índice de perfiles ilegible, se reconstruye: " + e.getMessage());
+        }
+        return index;
+    }
+
+    public synchronized ProfileSummary get(File profileFile) {
+        return entries.get(key(profileFile));
+    }
+
+    public synchronized void put(ProfileSummary summary) {
+        entries.put(summary.getPath(), summary);
+    }
+
+    public synchronized void remove(File profileFile) {
+        entries.remove(key(profileFile));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public void save() {
+        List<ProfileSummary> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(entries.values());
+        }
+        try {
+            OptionsPersister.writeAtomically(file, gson.toJson(snapshot).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar el índice de perfiles: " + e.getMessage());
+        }
+    }
+
+    /**
+     * True if the summary was taken from the file as it is now (same last-modified time and size).
+     */
+    public static boolean isCurrent(ProfileSummary summary, BasicFileAttributes attributes) {
+        return summary.getLastModified() == attributes.lastModifiedTime().toMillis()
+                && summary.getSize() == attributes.size();
+    }
+
+    /** Index key for a profile file. */
+    public static String key(File profileFile) {
+        return profileFile.getAbsolutePath();
+    }
+}
@@ -1,18 +1,101 @@
 package com.bunshock.service;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
 
 import com.bunshock.model.AppProfile;
+import com.bunshock.model.FieldConfig;
+import com.bunshock.model.ProfileSummary;
+import com.bunshock.model.TableConfig;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 public class ProfileService {
     private static final Gson gson = new Gson();
 
     public static AppProfile loadProfile(File file) throws IOException {
-        try (FileReader reader = new FileReader(file)) {
-            return gson.fromJson(reader, AppProfile.class);
+        // Profiles are UTF-8 whatever the platform default (accents in labels)
+        FlightEvents.ProfileLoad event = new FlightEvents.ProfileLoad();
+        event.begin();
+        AppProfile profile;
+        try (Metrics.Timer.Sample timing = Metrics.time("profile.load");
+             Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            profile = gson.fromJson(reader, AppProfile.class);
+            if (profile != null) compileRules(profile);
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.bytes = file.length();
+            if (profile != null) {
+                event.fields = profile.getSimpleFields() == null ? 0 : profile.getSimpleFields().size();
+                event.tables = profile.getTables() == null ? 0 : profile.getTables().size();
+            }
+            event.commit();
+        }
+        return profile;
+    }
+
+    // enabledIf conditions are checked on every cell update; compile them once here
+    private static void compileRules(AppProfile profile) {
+        if (profile.getSimpleFields() != null) {
+            for (FieldConfig field : profile.getSimpleFields()) field.getEnabledRule();
+        }
+        if (profile.getTables() != null) {
+            for (TableConfig table : profile.getTables()) {
+                if (table.getColumns() == null) continue;
+                for (FieldConfig column : table.getColumns()) column.getEnabledRule();
+            }
+        }
+    }
+
+    /**
+     * Reads only the name and template path of a profile; fields and tables are skipped, not parsed.
+     */
+    public static ProfileSummary loadSummary(File file) throws IOException {
+        // Stamp first: if the file changes while it is read, the next check sees a newer one
+        BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        String name = null;
+        String templatePath = null;
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String property = reader.nextName();
+                if ("profileName".equals(property)) {
+                    name = nextString(reader);
+                } else if ("templatePath".equals(property)) {
+                    templatePath = nextString(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new IOException("Perfil inválido: " + file.getName(), e);
+        }
+        return new ProfileSummary(ProfileIndex.key(file), name, templatePath,
+                attributes.lastModifiedTime().toMillis(), attributes.size());
+    }
+
+    /**
+     * Summary of a profile that was already read in full.
+     */
+    public static ProfileSummary summarize(File file, AppProfile profile) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        return new ProfileSummary(ProfileIndex.key(file), profile.getProfileName(), profile.getTemplatePath(),
+                attributes.lastModifiedTime().toMillis(), attributes.size());
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
     }
 }
@@ -0,0 +1,135 @@
+package com.bunshock.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recently rendered documents (UTF-8 HTML), so a reprint of the same note skips rendering.
+ *
+ * Keyed by the template content hash plus a hash of the data in canonical form
+ * (fields sorted by name, rows in order), so equal data gives the same key whatever
+ * map implementation it came in. Least recently used entries are dropped once the
+ * total size passes the limit.
+ */
+public class RenderedDocumentCache {
+    private static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+    private static RenderedDocumentCache instance;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    RenderedDocumentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static synchronized RenderedDocumentCache getInstance() {
+        if (instance == null) instance = new RenderedDocumentCache(DEFAULT_MAX_BYTES);
+        return instance;
+    }
+
+    /**
+     * Key for a document: template content, head tags (they carry the template folder), fields and rows.
+     */
+    public static String key(CompiledTemplate template, String headTags, Map<String, String> data,
+                             List<Map<String, String>> items) {
+        MessageDigest digest = sha256();
+        update(digest, template.getContentHash());
+        update(digest, headTags);
+        updateMap(digest, data);
+        if (items == null) {
+            update(digest, null);
+        } else {
+            update(digest, String.valueOf(items.size()));
+            for (Map<String, String> row : items) updateMap(digest, row);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public synchronized byte[] get(String key) {
+        byte[] document = entries.get(key);
+        (document != null ? hits : misses).incrementAndGet();
+        return document;
+    }
+
+    public synchronized void put(String key, byte[] document) {
+        if (document.length > maxBytes) return; // Would evict everything else
+
+        byte[] previous = entries.put(key, document);
+        totalBytes += document.length - (previous == null ? 0 : previous.length);
+
+        Iterator<byte[]> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized long getSizeBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    // Field names in sorted order; every string is length-prefixed so "a"+"bc" differs from "ab"+"c"
+    private static void updateMap(MessageDigest digest, Map<String, String> map) {
+        if (map == null) {
+            update(digest, null);
+            return;
+        }
+        TreeMap<String, String> sorted = new TreeMap<>();
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            if (entry.getKey() != null) sorted.put(entry.getKey(), entry.getValue()); // Never rendered
+        }
+        update(digest, String.valueOf(sorted.size()));
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            update(digest, entry.getKey());
+            update(digest, entry.getValue());
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(new byte[] {
+                (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16), (byte) (bytes.length >>> 8), (byte) bytes.length });
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
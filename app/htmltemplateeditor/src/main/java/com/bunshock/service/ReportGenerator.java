@@ -1,25 +1,36 @@
 package com.bunshock.service;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.TreeMap;
+
+import com.bunshock.service.CompiledTemplate.Literal;
+import com.bunshock.service.CompiledTemplate.Node;
+import com.bunshock.service.CompiledTemplate.Placeholder;
+import com.bunshock.service.CompiledTemplate.Section;
 
 public class ReportGenerator {
 
+    private static final String ITEMS_BLOCK = "ITEMS";
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+
     /**
      * Replaces simple top-level fields (e.g. {{NOMBRE}}, {{DNI}}).
      */
     public String processSimpleFields(String html, Map<String, String> data) {
-        for (Map.Entry<String, String> entry : data.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue() == null ? "" : entry.getValue();
-
-            // Case-insensitive replacement for {{KEY}}
-            String regex = "(?i)\\{\\{" + key + "\\}\\}";
-            html = html.replaceAll(regex, Matcher.quoteReplacement(value));
-        }
-        return html;
+        return render(CompiledTemplate.compile(html), data, null);
     }
 
     /**
@@ -30,53 +41,212 @@ public class ReportGenerator {
      * 3. Removes lines/divs for empty fields.
      */
     public String processRepeatedItems(String html, List<Map<String, String>> items) {
-        // 1. Find the {{#ITEMS}} block
-        Pattern blockPattern = Pattern.compile("(?i)\\{\\{#ITEMS\\}\\}(.*?)\\{\\{/ITEMS\\}\\}", Pattern.DOTALL);
-        Matcher blockMatcher = blockPattern.matcher(html);
-
-        if (blockMatcher.find()) {
-            String itemTemplate = blockMatcher.group(1); 
-            StringBuilder allItemsHtml = new StringBuilder();
-
-            for (Map<String, String> itemData : items) {
-                String rowHtml = itemTemplate;
-
-                for (Map.Entry<String, String> entry : itemData.entrySet()) {
-                    String key = entry.getKey();
-                    String value = entry.getValue();
-                    boolean isEmpty = (value == null || value.trim().isEmpty());
-
-                    if (isEmpty) {
-                        // --- THE FIX ---
-                        // 1. We match the OPENING tag of the container: <div ...>
-                        // 2. We allow ANY content (.*? including newlines/spans) 
-                        // 3. Until we hit {{KEY}}
-                        // 4. Then we find the CLOSING tag of that same container: </div>
-                        
-                        // "dotall" mode (?s) allows matching across newlines
-                        // We target 'div', 'p', 'span', or 'li' tags specifically to avoid accidental deletion of larger blocks
-                        String removeRegex = "(?is)<(div|p|span|li)[^>]*>(?:(?!<\\/\\1>).)*?\\{\\{" + key + "\\}\\}.*?<\\/\\1>";
-                        
-                        rowHtml = rowHtml.replaceAll(removeRegex, "");
-                        
-                        // Cleanup: Also remove the bare placeholder if the regex didn't catch a wrapper
-                        rowHtml = rowHtml.replaceAll("(?i)\\{\\{" + key + "\\}\\}", "");
-                    } else {
-                        // Standard Replacement
-                        String placeholderRegex = "(?i)\\{\\{" + key + "\\}\\}";
-                        rowHtml = rowHtml.replaceAll(placeholderRegex, Matcher.quoteReplacement(value));
-                    }
+        return render(CompiledTemplate.compile(html), Collections.emptyMap(), items);
+    }
+
+    /**
+     * Renders a compiled template in a single pass.
+     * Equivalent to processSimpleFields followed by processRepeatedItems.
+     * If items is null the {{#ITEMS}} block is left untouched.
+     */
+    public String render(CompiledTemplate template, Map<String, String> data, List<Map<String, String>> items) {
+        StringBuilderWriter out = new StringBuilderWriter(template.getSource().length() + 256);
+        FlightEvents.TemplateRender event = new FlightEvents.TemplateRender();
+        event.begin();
+        try (Metrics.Timer.Sample timing = Metrics.time("report.render")) {
+            renderNodes(out, template.getNodes(), new RenderContext(template, data, items));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Never thrown by an in-memory writer
+        }
+        String html = out.toString();
+        commit(event, template, items, html.length());
+        return html;
+    }
+
+    /**
+     * Streams the rendered document to a Writer through a bounded buffer,
+     * so the whole document never has to exist as a String.
+     * The writer is flushed but not closed.
+     */
+    public void render(CompiledTemplate template, Map<String, String> data, List<Map<String, String>> items,
+                       Writer out) throws IOException {
+        FlightEvents.TemplateRender event = new FlightEvents.TemplateRender();
+        event.begin();
+        // Characters are only counted while a recording wants the event
+        CountingWriter counter = event.isEnabled() ? new CountingWriter(out) : null;
+        Writer target = counter != null ? counter : out;
+        Writer buffered = target instanceof BufferedWriter ? target : new BufferedWriter(target, OUTPUT_BUFFER_SIZE);
+        try (Metrics.Timer.Sample timing = Metrics.time("report.render")) {
+            renderNodes(buffered, template.getNodes(), new RenderContext(template, data, items));
+            buffered.flush();
+        }
+        commit(event, template, items, counter != null ? counter.count : -1);
+    }
+
+    private static void commit(FlightEvents.TemplateRender event, CompiledTemplate template,
+                               List<Map<String, String>> items, long chars) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.templatePath = template.getOrigin();
+            event.chars = chars;
+            event.rows = items == null ? 0 : items.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Streams the rendered document to an OutputStream as UTF-8.
+     * The stream is flushed but not closed.
+     */
+    public void render(CompiledTemplate template, Map<String, String> data, List<Map<String, String>> items,
+                       OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+        render(template, data, items, writer);
+    }
+
+    /**
+     * Streams the rendered document into a UTF-8 file, inserting headTags into its head
+     * (see {@link HeadInjectingWriter#baseTags}).
+     */
+    public void renderToFile(CompiledTemplate template, Map<String, String> data, List<Map<String, String>> items,
+                             Path target, String headTags) throws IOException {
+        try (Writer out = new HeadInjectingWriter(
+                Files.newBufferedWriter(target, StandardCharsets.UTF_8), template, headTags)) {
+            render(template, data, items, out);
+        }
+    }
+
+    /**
+     * Same document as {@link #renderToFile}, as UTF-8 bytes in memory (for caching).
+     */
+    public byte[] renderToBytes(CompiledTemplate template, Map<String, String> data, List<Map<String, String>> items,
+                                String headTags) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(template.getSource().length() + 1024);
+        try (Writer out = new HeadInjectingWriter(
+                new OutputStreamWriter(bytes, StandardCharsets.UTF_8), template, headTags)) {
+            render(template, data, items, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Never thrown by an in-memory stream
+        }
+        Metrics.getInstance().histogram("report.bytes").record(bytes.size());
+        return bytes.toByteArray();
+    }
+
+    private void renderNodes(Writer out, List<Node> nodes, RenderContext ctx) throws IOException {
+        String src = ctx.source;
+        for (Node node : nodes) {
+            if (node instanceof Literal) {
+                out.write(src, node.start, node.end - node.start);
+            } else if (node instanceof Placeholder p) {
+                String value = ctx.fields.get(p.name);
+                if (value != null) {
+                    out.write(value);
+                } else {
+                    out.write(src, p.start, p.end - p.start);
+                }
+            } else if (node instanceof Section s) {
+                if (ctx.items != null && !ctx.itemsRendered && ITEMS_BLOCK.equalsIgnoreCase(s.name)) {
+                    // Only the first {{#ITEMS}} block is expanded
+                    ctx.itemsRendered = true;
+                    renderItems(out, s, ctx);
+                } else {
+                    out.write(src, s.start, s.bodyStart - s.start);
+                    renderNodes(out, s.body, ctx);
+                    out.write(src, s.bodyEnd, s.end - s.bodyEnd);
                 }
-                // Cleanup empty lines
-                rowHtml = rowHtml.replaceAll("(?m)^\\s+$", ""); 
-                allItemsHtml.append(rowHtml);
             }
+        }
+    }
 
-            html = html.substring(0, blockMatcher.start()) + 
-                   allItemsHtml.toString() + 
-                   html.substring(blockMatcher.end());
+    private void renderItems(Writer out, Section section, RenderContext ctx) throws IOException {
+        // Analyzed once per template; simple fields inside the block are filled per render
+        ctx.template.getRowTemplate(section).render(out, ctx.items, ctx.fields);
+    }
+
+    // Per-call state, so a single generator can be shared
+    private static final class RenderContext {
+        final CompiledTemplate template;
+        final String source;
+        final Map<String, String> fields = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        final List<Map<String, String>> items;
+        boolean itemsRendered;
+
+        RenderContext(CompiledTemplate template, Map<String, String> data, List<Map<String, String>> items) {
+            this.template = template;
+            this.source = template.getSource();
+            this.items = items;
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                if (entry.getKey() == null) continue;
+                // First match wins, as with the old sequential replaceAll
+                fields.putIfAbsent(entry.getKey(), entry.getValue() == null ? "" : entry.getValue());
+            }
         }
+    }
 
-        return html;
+    // Unsynchronized in-memory target for the String-returning methods
+    private static final class StringBuilderWriter extends Writer {
+        private final StringBuilder sb;
+
+        StringBuilderWriter(int capacity) {
+            sb = new StringBuilder(capacity);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            sb.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            sb.append(str, off, off + len);
+        }
+
+        @Override
+        public void write(String str) {
+            sb.append(str);
+        }
+
+        @Override
+        public void write(int c) {
+            sb.append((char) c);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+
+    // Counts the characters passed through, for the render event
+    private static final class CountingWriter extends FilterWriter {
+        long count;
+
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count++;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,274 @@
+package com.bunshock.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps compiled templates in memory, keyed by path.
+ *
+ * By default every get checks the file's last-modified time and size, and recompiles when
+ * they change. Once {@link #startWatching} is called, gets are served from memory without
+ * touching the disk (the templates usually live on a network share) and a background thread
+ * drops changed entries instead: right away through a WatchService for local folders, and
+ * by checking last-modified time and size every few seconds for network mounts, where
+ * watch events do not arrive.
+ *
+ * Each path maps to a future of its entry. A template is read and compiled outside the
+ * map by the one thread that put the future there; other threads asking for it meanwhile
+ * wait on that future, and other templates are not held up.
+ */
+public class TemplateCache {
+    private static TemplateCache instance;
+
+    private final Map<Path, CompletableFuture<Entry>> entries = new ConcurrentHashMap<>();
+    private final ExecutorService preloader = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Background invalidation (see startWatching)
+    private volatile boolean watching;
+    private WatchService watcher;
+    private Thread watchThread;
+    private final Map<Path, WatchKey> watchedFolders = new ConcurrentHashMap<>();
+
+    TemplateCache() {}
+
+    public static synchronized TemplateCache getInstance() {
+        if (instance == null) instance = new TemplateCache();
+        return instance;
+    }
+
+    public CompiledTemplate get(File templateFile) throws IOException {
+        Path path = key(templateFile);
+
+        CompletableFuture<Entry> cached = entries.get(path);
+        if (cached != null && watching) return await(path, cached).template;
+
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        // Threads asking for the same stale template wait for a single compile
+        while (true) {
+            CompletableFuture<Entry> current = entries.get(path);
+            if (current != null) {
+                Entry entry = await(path, current);
+                if (entry.lastModified == lastModified && entry.size == size) return entry.template;
+            }
+            CompletableFuture<Entry> loading = new CompletableFuture<>();
+            boolean owner = current == null ? entries.putIfAbsent(path, loading) == null
+                                            : entries.replace(path, current, loading);
+            if (owner) return load(path, lastModified, size, loading).template;
+            // Another thread started a load first: wait for that one
+        }
+    }
+
+    // Reads and compiles outside the map, then completes the future the waiters hold
+    private Entry load(Path path, long lastModified, long size, CompletableFuture<Entry> loading) throws IOException {
+        FlightEvents.TemplateCompile event = new FlightEvents.TemplateCompile();
+        event.begin();
+        try (Metrics.Timer.Sample timing = Metrics.time("template.read")) {
+            Entry entry = new Entry(lastModified, size, CompiledTemplate.compile(Files.readString(path), path.toString()));
+            loading.complete(entry);
+            if (watching) watchFolder(path.getParent());
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            entries.remove(path, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.templatePath = path.toString();
+                event.bytes = size;
+                event.commit();
+            }
+        }
+    }
+
+    private static Entry await(Path path, CompletableFuture<Entry> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IOException("No se pudo leer plantilla: " + path, e.getCause());
+        }
+    }
+
+    /**
+     * True if the template is cached or exists on disk. While watching, a cached template
+     * is known to exist, so this avoids a round trip to the share.
+     */
+    public boolean exists(File templateFile) {
+        return (watching && entries.containsKey(key(templateFile))) || templateFile.exists();
+    }
+
+    /**
+     * Reads and compiles the given templates in the background (e.g. all templates of the
+     * loaded profiles at startup), so the first print does not wait for the share.
+     */
+    public void preload(Collection<File> templateFiles) {
+        for (File templateFile : templateFiles) {
+            preloader.execute(() -> {
+                try {
+                    get(templateFile);
+                } catch (IOException e) {
+                    System.err.println("No se pudo precargar plantilla: " + templateFile + " (" + e.getMessage() + ")");
+                }
+            });
+        }
+    }
+
+    /**
+     * Serves templates from memory from now on and starts the background thread that drops
+     * changed ones. pollSeconds is how often files are checked on disk (network mounts).
+     */
+    public synchronized void startWatching(long pollSeconds) {
+        if (watching) return;
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            watcher = null; // Polling alone still works
+        }
+        watching = true;
+        for (Path path : entries.keySet()) watchFolder(path.getParent());
+
+        long pollMillis = TimeUnit.SECONDS.toMillis(Math.max(1, pollSeconds));
+        watchThread = new Thread(() -> watchLoop(pollMillis), "template-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    public synchronized void stopWatching() {
+        if (!watching) return;
+        watching = false;
+        watchThread.interrupt();
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+        watchedFolders.clear();
+    }
+
+    boolean isCached(File templateFile) {
+        return entries.containsKey(key(templateFile));
+    }
+
+    public void invalidate(File templateFile) {
+        entries.remove(key(templateFile));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private void watchLoop(long pollMillis) {
+        long nextPoll = System.currentTimeMillis() + pollMillis;
+        while (watching) {
+            try {
+                // 1. Local changes arrive as events
+                long wait = Math.max(1, nextPoll - System.currentTimeMillis());
+                if (watcher != null) {
+                    WatchKey key = watcher.poll(wait, TimeUnit.MILLISECONDS);
+                    if (key != null) handleEvents(key);
+                } else {
+                    Thread.sleep(wait);
+                }
+
+                // 2. Network mounts: compare what is on disk
+                if (System.currentTimeMillis() >= nextPoll) {
+                    pollEntries();
+                    nextPoll = System.currentTimeMillis() + pollMillis;
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Error al vigilar plantillas: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        Path folder = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost: drop the whole folder
+                entries.keySet().removeIf(path -> folder.equals(path.getParent()));
+            } else {
+                entries.remove(folder.resolve((Path) event.context()));
+            }
+        }
+        if (!key.reset()) {
+            // Folder deleted or unreachable
+            watchedFolders.remove(folder);
+            entries.keySet().removeIf(path -> folder.equals(path.getParent()));
+        }
+    }
+
+    private void pollEntries() {
+        for (Map.Entry<Path, CompletableFuture<Entry>> cached : entries.entrySet()) {
+            Path path = cached.getKey();
+            Entry entry = cached.getValue().getNow(null);
+            if (entry == null) continue; // Still loading
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attributes.lastModifiedTime().toMillis() == entry.lastModified && attributes.size() == entry.size) {
+                    continue;
+                }
+            } catch (NoSuchFileException e) {
+                // Deleted: drop it
+            } catch (IOException e) {
+                continue; // Share unreachable: keep serving the last good copy
+            }
+            entries.remove(path, cached.getValue());
+        }
+    }
+
+    private void watchFolder(Path folder) {
+        if (watcher == null || folder == null) return;
+        watchedFolders.computeIfAbsent(folder, f -> {
+            try {
+                return f.register(watcher, StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_CREATE);
+            } catch (IOException | ClosedWatchServiceException e) {
+                return null; // Not watchable: polling covers it
+            }
+        });
+    }
+
+    private static Path key(File templateFile) {
+        return templateFile.toPath().toAbsolutePath().normalize();
+    }
+
+    private static final class Entry {
+        final long lastModified;
+        final long size;
+        final CompiledTemplate template;
+
+        Entry(long lastModified, long size, CompiledTemplate template) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.template = template;
+        }
+    }
+}
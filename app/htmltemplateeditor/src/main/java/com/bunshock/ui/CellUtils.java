@@ -1,24 +1,39 @@
 package com.bunshock.ui;
 
-import java.util.List;
 import java.util.Map;
 
 import com.bunshock.model.FieldConfig;
 
+import javafx.beans.value.ChangeListener;
+
 public class CellUtils {
 
     public static boolean isFieldEnabled(Map<String, String> rowData, FieldConfig config) {
-        if (config.getEnabledIf() == null) {
-            return true; // No restrictions
+        // Table rows cache the answer until a column the rule reads changes
+        if (rowData instanceof ItemRow row) {
+            return row.isEnabled(config.getTag());
         }
+        return config.getEnabledRule().test(rowData);
+    }
 
-        String dependencyTag = config.getEnabledIf().tag;
-        List<String> allowedValues = config.getEnabledIf().values;
+    /**
+     * Keeps a cell listening to the row it currently shows, so it can update its enabled
+     * state when another column of that row changes (no table-wide refresh).
+     */
+    static final class RowWatcher {
+        private final ChangeListener<Number> listener;
+        private ItemRow watched;
 
-        // Get the value of the controlling field (e.g., "type") from the current row
-        String actualValue = rowData.getOrDefault(dependencyTag, "");
+        RowWatcher(Runnable onChange) {
+            this.listener = (obs, oldValue, newValue) -> onChange.run();
+        }
 
-        // Check if the actual value is in the allowed list
-        return allowedValues.contains(actualValue);
+        void watch(Map<String, String> row) {
+            ItemRow next = row instanceof ItemRow itemRow ? itemRow : null;
+            if (next == watched) return;
+            if (watched != null) watched.revisionProperty().removeListener(listener);
+            watched = next;
+            if (watched != null) watched.revisionProperty().addListener(listener);
+        }
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.bunshock.ui;
 
 import java.util.Map;
 
+import com.bunshock.model.EnablementRule;
 import com.bunshock.model.FieldConfig;
 
 import javafx.scene.control.TableCell;
@@ -17,9 +18,12 @@ public class CommitOnBlurCell extends TableCell<Map<String, String>, String> {
     private TextField textField;
 
     private final FieldConfig config;
+    private final CellUtils.RowWatcher rowWatcher; // Only for cells with an enabledIf rule
 
     public CommitOnBlurCell(FieldConfig config) {
         this.config = config;
+        this.rowWatcher = config.getEnabledRule() == EnablementRule.ALWAYS ? null
+            : new CellUtils.RowWatcher(() -> render(getItem(), isEmpty()));
     }
 
     @Override
@@ -48,13 +52,18 @@ public class CommitOnBlurCell extends TableCell<Map<String, String>, String> {
     @Override
     public void updateItem(String item, boolean empty) {
         super.updateItem(item, empty);
+        render(item, empty);
+    }
 
+    private void render(String item, boolean empty) {
         boolean enabled = true;
+        Map<String, String> row = null;
 
         if (!empty && getTableView() != null && getIndex() < getTableView().getItems().size()) {
-            Map<String, String> row = getTableView().getItems().get(getIndex());
+            row = getTableView().getItems().get(getIndex());
             enabled = CellUtils.isFieldEnabled(row, config);
         }
+        if (rowWatcher != null) rowWatcher.watch(row);
         
         setDisable(!enabled);
         setStyle(enabled ? "" : "-fx-background-color: #e0e0e0;");
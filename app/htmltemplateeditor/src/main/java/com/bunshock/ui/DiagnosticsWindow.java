@@ -0,0 +1,76 @@
+package com.bunshock.ui;
+
+import java.util.Locale;
+import java.util.function.ToDoubleFunction;
+
+import com.bunshock.service.Metrics;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+/**
+ * "Diagnóstico" window: the current metrics (times in ms), refreshed every second while open.
+ */
+public class DiagnosticsWindow {
+    private final Stage stage = new Stage();
+    private final TableView<Metrics.Metric> table = new TableView<>();
+    private final Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> update()));
+
+    public DiagnosticsWindow(Window owner) {
+        stage.initOwner(owner);
+        stage.setTitle("Diagnóstico");
+
+        TableColumn<Metrics.Metric, String> name = new TableColumn<>("Métrica");
+        name.setCellValueFactory(data -> new ReadOnlyStringWrapper(data.getValue().getName()));
+        name.setPrefWidth(160);
+        TableColumn<Metrics.Metric, Number> count = new TableColumn<>("Cantidad");
+        count.setCellValueFactory(data -> new ReadOnlyObjectWrapper<>(data.getValue().getCount()));
+        table.getColumns().add(name);
+        table.getColumns().add(count);
+        table.getColumns().add(column("Media", Metrics.Metric::getMean));
+        table.getColumns().add(column("p95", Metrics.Metric::getP95));
+        table.getColumns().add(column("p99", Metrics.Metric::getP99));
+        table.getColumns().add(column("Máximo", Metrics.Metric::getMax));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+
+        Label hint = new Label("Tiempos en milisegundos desde que se abrió la aplicación. También se guardan en el archivo de métricas.");
+        hint.setStyle("-fx-text-fill: #888;");
+        hint.setWrapText(true);
+
+        VBox root = new VBox(8, table, hint);
+        root.setPadding(new Insets(10));
+        stage.setScene(new Scene(root, 640, 360));
+
+        refresh.setCycleCount(Timeline.INDEFINITE);
+        stage.setOnShown(e -> refresh.play());
+        stage.setOnHidden(e -> refresh.stop());
+    }
+
+    private static TableColumn<Metrics.Metric, String> column(String title, ToDoubleFunction<Metrics.Metric> value) {
+        TableColumn<Metrics.Metric, String> col = new TableColumn<>(title);
+        col.setCellValueFactory(data -> new ReadOnlyStringWrapper(data.getValue() instanceof Metrics.Counter
+                ? "" : String.format(Locale.ROOT, "%.1f", value.applyAsDouble(data.getValue()))));
+        return col;
+    }
+
+    private void update() {
+        table.getItems().setAll(Metrics.getInstance().getAll());
+    }
+
+    public void show() {
+        update();
+        stage.show();
+        stage.toFront();
+    }
+}
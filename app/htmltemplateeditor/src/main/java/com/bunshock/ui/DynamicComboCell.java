@@ -1,29 +1,52 @@
 package com.bunshock.ui;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
 
+import com.bunshock.model.EnablementRule;
 import com.bunshock.model.FieldConfig;
 import com.bunshock.service.OptionsManager;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TableCell;
+import javafx.scene.control.TextField;
 import javafx.scene.control.TextInputDialog;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 
 public class DynamicComboCell extends TableCell<Map<String, String>, String> {
+    private static final String ADD_OPTION = "Agregar...";
+    private static final int TYPE_AHEAD_LIMIT = 100;
 
     private ComboBox<String> comboBox;
+    private FilteredList<String> shown; // The shared option list, narrowed while typing
+    private String parentValue; // Parent value of the row being edited
+    private boolean filtering;
     private final String currentField; // e.g., "brand"
 
     private final FieldConfig config;
+    private final Models models;
+    private final CellUtils.RowWatcher rowWatcher; // Only for cells with an enabledIf rule
 
-    public DynamicComboCell(FieldConfig config) {
+    /**
+     * @param models option lists of this column, shared by all its cells
+     */
+    public DynamicComboCell(FieldConfig config, Models models) {
         this.config = config;
+        this.models = models;
         this.currentField = config.getTag();
+        this.rowWatcher = config.getEnabledRule() == EnablementRule.ALWAYS ? null
+            : new CellUtils.RowWatcher(() -> render(getItem(), isEmpty()));
     }
 
     @Override
@@ -33,8 +56,10 @@ public class DynamicComboCell extends TableCell<Map<String, String>, String> {
             if (!CellUtils.isFieldEnabled(row, config)) {
                 return; // STOP! Do not open the dropdown
             }
-            super.startEdit();
+            // Prepared before editing starts: setValue fires onAction, which commits only while editing
             createComboBox();
+            super.startEdit();
+            if (!isEditing()) return;
             setText(null);
             setGraphic(comboBox);
             comboBox.show(); // Auto-open the dropdown
@@ -51,12 +76,17 @@ public class DynamicComboCell extends TableCell<Map<String, String>, String> {
     @Override
     public void updateItem(String item, boolean empty) {
         super.updateItem(item, empty);
+        render(item, empty);
+    }
 
+    private void render(String item, boolean empty) {
         boolean enabled = true;
+        Map<String, String> row = null;
         if (!empty && getTableView() != null && getIndex() < getTableView().getItems().size()) {
-            Map<String, String> row = getTableView().getItems().get(getIndex());
+            row = getTableView().getItems().get(getIndex());
             enabled = CellUtils.isFieldEnabled(row, config);
         }
+        if (rowWatcher != null) rowWatcher.watch(row);
 
         // Visual feedback
         setDisable(!enabled); 
@@ -83,32 +113,35 @@ public class DynamicComboCell extends TableCell<Map<String, String>, String> {
         OptionsManager mgr = OptionsManager.getInstance();
         String parentField = mgr.getDependencyField(currentField);
         
-        // We use a temporary variable for calculation
-        String calculatedParentValue = null;
-
         // If there is a dependency, fetch the value from the current row
+        parentValue = null;
         if (parentField != null && getTableView() != null) {
             Map<String, String> rowData = getTableView().getItems().get(getIndex());
-            calculatedParentValue = rowData.get(parentField);
+            parentValue = rowData.get(parentField);
         }
-        
-        // 'final' copy to use inside the Lambda below
-        final String parentValue = calculatedParentValue;
 
-        // 2. Fetch Options using the calculated value
-        List<String> options = mgr.getOptions(currentField, parentValue);
-        options.add(0, ""); // Allow empty selection
-        options.add("Agregar..."); 
+        // 2. Shared option list; the editor and its filtered view are built once and reused
+        ObservableList<String> options = models.get(parentValue);
+        mgr.prepareSearch(currentField, parentValue);
+        if (comboBox == null) buildComboBox();
+        if (shown == null || shown.getSource() != options) {
+            shown = new FilteredList<>(options);
+            comboBox.setItems(shown);
+        } else {
+            shown.setPredicate(null);
+        }
+        comboBox.setValue(getItem());
+    }
 
-        comboBox = new ComboBox<>(FXCollections.observableArrayList(options));
+    private void buildComboBox() {
+        comboBox = new ComboBox<>();
         comboBox.setEditable(true);
-        comboBox.setValue(getItem());
 
         // 3. Handle Selection
         comboBox.setOnAction(e -> {
+            if (!isEditing() || filtering) return; // Value set while preparing or filtering the list
             String selected = comboBox.getValue();
-            if ("Agregar...".equals(selected)) {
-                // Now passing 'parentValue' is legal because it is effectively final
+            if (ADD_OPTION.equals(selected)) {
                 handleNewOption(parentValue);
             } else {
                 commitEdit(selected);
@@ -124,13 +157,95 @@ public class DynamicComboCell extends TableCell<Map<String, String>, String> {
         comboBox.focusedProperty().addListener((obs, old, isFocused) -> {
             if (!isFocused && isEditing()) {
                 String raw = comboBox.getEditor().getText();
-                if(raw != null && !raw.equals("Agregar...") && !raw.isEmpty()) {
+                if(raw != null && !raw.equals(ADD_OPTION) && !raw.isEmpty()) {
                      commitEdit(raw);
                 } else {
                      cancelEdit();
                 }
             }
         });
+
+        // 6. Type-ahead: typing narrows the dropdown to matching options
+        comboBox.getEditor().addEventHandler(KeyEvent.KEY_RELEASED, t -> {
+            KeyCode code = t.getCode();
+            if (!isEditing() || code.isNavigationKey() || code == KeyCode.ENTER || code == KeyCode.ESCAPE
+                    || code == KeyCode.TAB) return;
+            filter(comboBox.getEditor().getText());
+        });
+    }
+
+    // Narrows the shown list in place (kept in option order), no new list per keystroke
+    private void filter(String typed) {
+        if (typed == null) typed = "";
+        Predicate<String> predicate = null;
+        if (!typed.isEmpty()) {
+            Set<String> matches = new HashSet<>(
+                    OptionsManager.getInstance().search(currentField, parentValue, typed, TYPE_AHEAD_LIMIT));
+            predicate = option -> option.isEmpty() || option.equals(ADD_OPTION) || matches.contains(option);
+        }
+
+        // Filtering out the selected value resets the editor text; keep what the user typed
+        TextField editor = comboBox.getEditor();
+        int caret = editor.getCaretPosition();
+        filtering = true;
+        try {
+            shown.setPredicate(predicate);
+            if (!typed.equals(editor.getText())) {
+                editor.setText(typed);
+                editor.positionCaret(caret);
+            }
+        } finally {
+            filtering = false;
+        }
+        if (!comboBox.isShowing()) comboBox.show();
+    }
+
+    /**
+     * Option lists shown in the dropdowns of one column: empty entry, the options, then
+     * "Agregar...". One read-only list per parent value, shared by the column's cells.
+     * An entry is rebuilt only when the manager's list for that field and parent changed
+     * (its lists are immutable and replaced on change), so adding an option to one field
+     * leaves the other columns' lists alone. One instance per table column; FX thread only.
+     */
+    public static final class Models {
+        private final String field;
+        private final Map<String, Model> byParent = new HashMap<>();
+
+        public Models(String field) {
+            this.field = field;
+        }
+
+        ObservableList<String> get(String parentValue) {
+            List<String> source = OptionsManager.getInstance().getOptions(field, parentValue);
+            Model model = byParent.get(parentValue);
+            if (model == null || model.source != source) {
+                // Several parents often share one list (e.g. only plain values): reuse its model
+                model = sharedModel(source);
+                byParent.put(parentValue, model);
+            }
+            return model.shown;
+        }
+
+        private Model sharedModel(List<String> source) {
+            for (Model model : byParent.values()) {
+                if (model.source == source) return model;
+            }
+            return new Model(source);
+        }
+    }
+
+    private static final class Model {
+        final List<String> source;
+        final ObservableList<String> shown;
+
+        Model(List<String> source) {
+            this.source = source;
+            List<String> options = new ArrayList<>(source.size() + 2);
+            options.add(""); // Allow empty selection
+            options.addAll(source);
+            options.add(ADD_OPTION);
+            this.shown = FXCollections.unmodifiableObservableList(FXCollections.observableArrayList(options));
+        }
     }
 
     private void handleNewOption(String parentValue) {
@@ -1,14 +1,27 @@
 package com.bunshock.ui;
 
-import java.util.HashMap;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.bunshock.model.FieldConfig;
 import com.bunshock.model.TableConfig;
+import com.bunshock.service.ItemImporter;
 import com.bunshock.service.OptionsManager;
 
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
-import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
@@ -17,10 +30,16 @@ import javafx.scene.control.Label;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 
 public class DynamicTableBuilder {
     // We keep a reference to the table to control focus later
@@ -30,6 +49,12 @@ public class DynamicTableBuilder {
     // We need to keep track of the first editable column to trigger auto-edit
     private TableColumn<Map<String, String>, ?> firstEditableColumn = null;
 
+    // Column layout shared by every row of this table
+    private ItemRow.Columns columns;
+
+    private static final KeyCombination PASTE = new KeyCodeCombination(KeyCode.V, KeyCombination.SHORTCUT_DOWN);
+    private HBox controls;
+
     public VBox createTable(TableConfig config) {
         table = new TableView<>();
         table.setEditable(true);
@@ -56,26 +81,30 @@ public class DynamicTableBuilder {
         table.getColumns().add(indexCol);
 
         // --- 2. Build Dynamic Columns ---
+        columns = new ItemRow.Columns(config.getColumns());
         for (FieldConfig colCfg : config.getColumns()) {
             TableColumn<Map<String, String>, String> col = new TableColumn<>(colCfg.getLabel());
             
-            col.setCellValueFactory(data ->
-                new SimpleStringProperty(data.getValue().getOrDefault(colCfg.getTag(), ""))
+            // Rows keep one property per column, so scrolling reuses them instead of allocating
+            int index = columns.indexOf(colCfg.getTag());
+            col.setCellValueFactory(data -> data.getValue() instanceof ItemRow row
+                ? row.property(index)
+                : new ReadOnlyStringWrapper(data.getValue().getOrDefault(colCfg.getTag(), ""))
             );
             
             // Check if this field exists in our OptionsManager
             if (OptionsManager.getInstance().hasOptions(colCfg.getTag())) {
-                // Use the Smart Dropdown
-                col.setCellFactory(column -> new DynamicComboCell(colCfg));
+                // Use the Smart Dropdown; the column's cells share its option lists
+                DynamicComboCell.Models models = new DynamicComboCell.Models(colCfg.getTag());
+                col.setCellFactory(column -> new DynamicComboCell(colCfg, models));
             } else {
                 // Use the Standard Text Input (Save on Blur)
                 col.setCellFactory(column -> new CommitOnBlurCell(colCfg));
             }
             
-            col.setOnEditCommit(e -> {
-                e.getRowValue().put(colCfg.getTag(), e.getNewValue());
-                table.refresh();
-            });
+            // Only this row's cells update: the edited one through its property, the
+            // dependent ones (enabledIf) through the row's revision
+            col.setOnEditCommit(e -> e.getRowValue().put(colCfg.getTag(), e.getNewValue()));
 
             table.getColumns().add(col);
 
@@ -99,6 +128,18 @@ public class DynamicTableBuilder {
         Button addBtn = new Button("Agregar item");
         addBtn.setOnAction(e -> handleAddItem(config));
         
+        // Bulk entry: rows copied from a spreadsheet, or a CSV export
+        Button pasteBtn = new Button("Pegar filas");
+        pasteBtn.setOnAction(e -> handlePaste(config));
+        Button importBtn = new Button("Importar CSV...");
+        importBtn.setOnAction(e -> handleImport(config));
+        table.addEventHandler(KeyEvent.KEY_PRESSED, e -> {
+            if (PASTE.match(e) && table.getEditingCell() == null) {
+                handlePaste(config);
+                e.consume();
+            }
+        });
+
         Button removeBtn = new Button("Eliminar selección");
         removeBtn.setOnAction(e -> {
             if(!table.getSelectionModel().isEmpty()) {
@@ -114,7 +155,7 @@ public class DynamicTableBuilder {
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
         
-        HBox controls = new HBox(10, addBtn, removeBtn, spacer, counterLabel);
+        controls = new HBox(10, addBtn, removeBtn, pasteBtn, importBtn, spacer, counterLabel);
         
         return new VBox(5, table, controls);
     }
@@ -138,11 +179,7 @@ public class DynamicTableBuilder {
         }
 
         // Create the new empty row
-        Map<String, String> newRow = new HashMap<>();
-        for (FieldConfig fc : config.getColumns()) {
-            newRow.put(fc.getTag(), "");
-        }
-        tableData.add(newRow);
+        tableData.add(ItemRow.blank(columns));
 
         // Rule 2: Focus and Edit the new row immediately
         int newIndex = tableData.size() - 1;
@@ -155,6 +192,69 @@ public class DynamicTableBuilder {
         }
     }
 
+    // --- Bulk paste / import ---
+    private void handlePaste(TableConfig config) {
+        String text = Clipboard.getSystemClipboard().getString();
+        if (text == null || text.isBlank()) {
+            showAlert("Pegar filas", "El portapapeles no tiene texto. Copie las filas desde la planilla.");
+            return;
+        }
+        importRows(config, () -> new StringReader(text));
+    }
+
+    private void handleImport(TableConfig config) {
+        FileChooser fc = new FileChooser();
+        fc.setTitle("Importar items");
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV / TSV", "*.csv", "*.tsv", "*.txt"));
+        File file = fc.showOpenDialog(table.getScene().getWindow());
+        if (file == null) return;
+        importRows(config, () -> Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8));
+    }
+
+    // Parses and validates in the background, then adds everything with one list update
+    private void importRows(TableConfig config, Callable<Reader> source) {
+        controls.setDisable(true);
+        ItemRow.Columns rowColumns = columns;
+        CompletableFuture.supplyAsync(() -> {
+            try (Reader reader = source.call()) {
+                return ItemImporter.read(reader, config.getColumns());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }).whenCompleteAsync((result, error) -> {
+            controls.setDisable(false);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                new Alert(Alert.AlertType.ERROR, "No se pudieron importar las filas: " + cause.getMessage()).show();
+                return;
+            }
+            if (result.getRows().isEmpty()) {
+                showAlert("Importar items", "No se encontraron filas para importar.");
+                return;
+            }
+
+            // Empty rows would block "Agregar item" and printing; the imported ones replace them
+            List<Map<String, String>> merged = new ArrayList<>(tableData.size() + result.getRows().size());
+            for (Map<String, String> row : tableData) {
+                if (!isRowEmpty(row)) merged.add(row);
+            }
+            int firstImported = merged.size();
+            for (String[] values : result.getRows()) merged.add(new ItemRow(rowColumns, values));
+            tableData.setAll(merged);
+            table.scrollTo(firstImported);
+
+            if (result.getProblemCount() > 0) {
+                StringBuilder message = new StringBuilder("Se importaron " + result.getRows().size() + " filas. "
+                        + result.getProblemCount() + " valores no están en las opciones:\n");
+                for (String problem : result.getProblems()) message.append("\n").append(problem);
+                if (result.getProblemCount() > result.getProblems().size()) message.append("\n...");
+                showAlert("Revisar valores importados", message.toString());
+            }
+        }, Platform::runLater);
+    }
+
     // Helper: Checks if all values in the row map are empty
     private boolean isRowEmpty(Map<String, String> row) {
         for (String value : row.values()) {
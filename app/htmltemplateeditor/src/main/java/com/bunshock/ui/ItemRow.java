@@ -0,0 +1,223 @@
+package com.bunshock.ui;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.bunshock.model.EnablementRule;
+import com.bunshock.model.FieldConfig;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+/**
+ * One table row: a String per column, stored by column index instead of a HashMap per row.
+ *
+ * Still a Map (tag -> value), so printing, validation and the cells read it as before.
+ * The cell value of each column is one cached property, created the first time the cell
+ * shows it and updated in place on edits. Whether a column is enabled (enabledIf) is cached
+ * too and recomputed only after one of the columns its rule reads changes; the cells of
+ * such columns listen to {@link #revisionProperty()} instead of refreshing the whole table.
+ * FX thread only.
+ */
+public class ItemRow extends AbstractMap<String, String> {
+    private final Columns columns;
+    private final String[] values;
+    private StringProperty[] properties;     // Created on demand
+    private IntegerProperty revision;         // Created on demand
+    private Map<String, String> extra;       // Keys that are not columns (rare)
+    private byte[] enabled;                  // Per column: UNKNOWN, ENABLED or DISABLED
+
+    private static final byte UNKNOWN = 0;
+    private static final byte ENABLED = 1;
+    private static final byte DISABLED = 2;
+
+    public ItemRow(Columns columns) {
+        this(columns, new String[columns.tags.length]);
+    }
+
+    /**
+     * Row over the given values, one per column in column order (the array is used as is).
+     */
+    public ItemRow(Columns columns, String[] values) {
+        if (values.length != columns.tags.length) {
+            throw new IllegalArgumentException("Se esperaban " + columns.tags.length + " valores, hay " + values.length);
+        }
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /** Row with "" in every column, as a new empty item. */
+    public static ItemRow blank(Columns columns) {
+        ItemRow row = new ItemRow(columns);
+        Arrays.fill(row.values, "");
+        return row;
+    }
+
+    /**
+     * Cached observable value of a column (for the column's cell value factory).
+     */
+    public StringProperty property(int column) {
+        if (properties == null) properties = new StringProperty[values.length];
+        StringProperty property = properties[column];
+        if (property == null) {
+            property = new SimpleStringProperty(values[column] == null ? "" : values[column]);
+            properties[column] = property;
+        }
+        return property;
+    }
+
+    /**
+     * Whether the column's enabledIf rule allows editing it in this row (cached).
+     */
+    public boolean isEnabled(String tag) {
+        int column = columns.indexOf(tag);
+        if (column < 0 || columns.rules[column] == EnablementRule.ALWAYS) return true;
+        if (enabled == null) enabled = new byte[values.length];
+        if (enabled[column] == UNKNOWN) {
+            enabled[column] = columns.rules[column].test(this) ? ENABLED : DISABLED;
+        }
+        return enabled[column] == ENABLED;
+    }
+
+    /**
+     * Changes whenever a value that some column's enabledIf rule reads changes.
+     */
+    public ReadOnlyIntegerProperty revisionProperty() {
+        if (revision == null) revision = new SimpleIntegerProperty();
+        return revision;
+    }
+
+    @Override
+    public String get(Object key) {
+        int column = columns.indexOf(key);
+        if (column >= 0) return values[column];
+        return extra == null ? null : extra.get(key);
+    }
+
+    @Override
+    public String getOrDefault(Object key, String defaultValue) {
+        String value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int column = columns.indexOf(key);
+        if (column >= 0) return values[column] != null;
+        return extra != null && extra.containsKey(key);
+    }
+
+    @Override
+    public String put(String key, String value) {
+        String old;
+        int column = columns.indexOf(key);
+        if (column >= 0) {
+            old = values[column];
+            values[column] = value;
+            if (properties != null && properties[column] != null) properties[column].set(value == null ? "" : value);
+        } else {
+            if (extra == null) extra = new HashMap<>();
+            old = extra.put(key, value);
+        }
+        int[] dependents = columns.dependentsOf(key);
+        if (dependents.length > 0) {
+            if (enabled != null) {
+                for (int dependent : dependents) enabled[dependent] = UNKNOWN;
+            }
+            if (revision != null) revision.set(revision.get() + 1);
+        }
+        return old;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                Iterator<Entry<String, String>> rest = extra == null ? null : extra.entrySet().iterator();
+                return new Iterator<>() {
+                    int next = advance(0);
+
+                    private int advance(int from) {
+                        while (from < values.length && values[from] == null) from++;
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length || (rest != null && rest.hasNext());
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (next < values.length) {
+                            Entry<String, String> entry = new SimpleImmutableEntry<>(columns.tags[next], values[next]);
+                            next = advance(next + 1);
+                            return entry;
+                        }
+                        if (rest != null) return rest.next();
+                        throw new NoSuchElementException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                int size = extra == null ? 0 : extra.size();
+                for (String value : values) if (value != null) size++;
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Column layout of one table, shared by all its rows.
+     */
+    public static final class Columns {
+        private static final int[] NONE = new int[0];
+
+        private final String[] tags;
+        private final EnablementRule[] rules;
+        private final Map<String, Integer> index = new HashMap<>();
+        private final Map<String, int[]> dependents = new HashMap<>(); // Tag -> columns whose rule reads it
+
+        public Columns(List<FieldConfig> fields) {
+            tags = new String[fields.size()];
+            rules = new EnablementRule[tags.length];
+            for (int i = 0; i < tags.length; i++) {
+                tags[i] = fields.get(i).getTag();
+                rules[i] = fields.get(i).getEnabledRule();
+                index.putIfAbsent(tags[i], i);
+                for (String tag : rules[i].getControllingTags()) {
+                    int[] current = dependents.getOrDefault(tag, NONE);
+                    int[] grown = Arrays.copyOf(current, current.length + 1);
+                    grown[current.length] = i;
+                    dependents.put(tag, grown);
+                }
+            }
+        }
+
+        private int[] dependentsOf(String tag) {
+            return dependents.getOrDefault(tag, NONE);
+        }
+
+        public int indexOf(Object tag) {
+            Integer column = index.get(tag);
+            return column == null ? -1 : column;
+        }
+
+        public int size() {
+            return tags.length;
+        }
+    }
+}
@@ -1,27 +1,42 @@
 package com.bunshock.ui;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.prefs.Preferences;
 import java.util.stream.Collectors;
 
 import com.bunshock.model.AppProfile;
+import com.bunshock.model.BatchRecord;
 import com.bunshock.model.FieldConfig;
+import com.bunshock.model.ProfileSummary;
 import com.bunshock.model.TableConfig;
+import com.bunshock.service.BatchDataReader;
 import com.bunshock.service.PathHelper;
+import com.bunshock.service.PdfExporter;
+import com.bunshock.service.ProfileIndex;
 import com.bunshock.service.ProfileService;
-import com.bunshock.service.ReportGenerator;
+import com.bunshock.service.TemplateCache;
 
-import javafx.beans.value.ChangeListener;
-import javafx.beans.value.ObservableValue;
-import javafx.concurrent.Worker;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.print.PrinterJob;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
@@ -40,7 +55,6 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
-import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
@@ -55,20 +69,36 @@ public class MainView {
     private static final String KEY_SAVED_PROFILES = "saved_profile_paths";
 
     // UI Controls
-    private final ComboBox<AppProfile> profileSelector = new ComboBox<>();
+    private final ComboBox<ProfileSummary> profileSelector = new ComboBox<>();
     private final VBox formContainer = new VBox(15);
     private final ScrollPane scrollPane = new ScrollPane(formContainer);
     
     // Data Management
-    private final Map<AppProfile, File> profileSourceMap = new HashMap<>();
+    // The selector is filled from this local index; a profile is read in full only when selected
+    private final ProfileIndex profileIndex = ProfileIndex.load(Paths.get("profile_index.json"));
+    private final Map<String, AppProfile> loadedProfiles = new HashMap<>();
+
+    // Built forms of recently used profiles; switching back just swaps the nodes (keeps what was typed)
+    private static final int CACHED_FORMS = 8;
+    private final Map<AppProfile, BuiltForm> formCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<AppProfile, BuiltForm> eldest) {
+            return size() > CACHED_FORMS;
+        }
+    };
     
     // Current Form Data
     private Map<String, Control> currentInputMap = new HashMap<>();
     private Map<String, DynamicTableBuilder> currentTableMap = new HashMap<>();
     private final WebView invisibleBrowser = new WebView();
+    private final PrintPipeline printPipeline;
+    private final PrintQueue printQueue;
+    private DiagnosticsWindow diagnostics; // Created on first use
 
     public MainView(Stage stage) {
         this.stage = stage;
+        this.printPipeline = new PrintPipeline(invisibleBrowser, stage);
+        this.printQueue = new PrintQueue(printPipeline, stage);
         setupUI();
     }
 
@@ -83,7 +113,7 @@ public class MainView {
         // Listener to handle selection changes (User or Code)
         profileSelector.valueProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
-                renderForm(newVal);
+                showProfile(newVal);
             } else {
                 showEmptyState();
             }
@@ -145,6 +175,21 @@ public class MainView {
             com.bunshock.service.OptionsManager.getInstance().lastSyncTimeProperty().map(t -> "(" + t + ")")
         );
 
+        // Options added but not yet written to the backup/server
+        Label pendingLabel = new Label();
+        pendingLabel.setStyle("-fx-text-fill: #e67e22;");
+        pendingLabel.textProperty().bind(
+            com.bunshock.service.OptionsManager.getInstance().pendingChangesProperty().map(n -> n.intValue() == 0 ? "" : "Cambios pendientes: " + n)
+        );
+
+        // Render/print/sync times, to explain slow prints
+        Button btnDiagnostics = new Button("Diagnóstico");
+        btnDiagnostics.setTooltip(new Tooltip("Tiempos de lectura, render, impresión y sincronización"));
+        btnDiagnostics.setOnAction(e -> {
+            if (diagnostics == null) diagnostics = new DiagnosticsWindow(stage);
+            diagnostics.show();
+        });
+
         Region footer_spacer = new Region();
         HBox.setHgrow(footer_spacer, Priority.ALWAYS);
 
@@ -160,7 +205,7 @@ public class MainView {
         footer.setStyle("-fx-background-color: #f8f8f8; -fx-border-color: #ccc; -fx-border-width: 1 0 0 0;");
 
         // Add elements: Status info on the left, spacer in middle, button on right
-        footer.getChildren().addAll(lblStatusHeader, statusLabel, syncTimeDisplay, spacer, btnSync);
+        footer.getChildren().addAll(lblStatusHeader, statusLabel, syncTimeDisplay, pendingLabel, btnDiagnostics, footer_spacer, btnSync);
 
         rootLayout.setBottom(footer);
 
@@ -179,28 +224,95 @@ public class MainView {
     // --- Session Persistence ---
 
     private void saveSession() {
-        String allPaths = profileSourceMap.values().stream()
-                .map(File::getAbsolutePath)
+        String allPaths = profileSelector.getItems().stream()
+                .map(ProfileSummary::getPath)
                 .distinct()
                 .collect(Collectors.joining(File.pathSeparator));
         
         prefs.put(KEY_SAVED_PROFILES, allPaths);
+        profileIndex.save();
     }
 
     private void restoreSession() {
         String allPaths = prefs.get(KEY_SAVED_PROFILES, "");
         if (allPaths.isEmpty()) return;
 
+        // 1. Fill the selector from the index right away, without touching the share
         String[] paths = allPaths.split(File.pathSeparator);
-        for (String path : paths) {
-            File f = new File(path);
-            if (f.exists()) {
-                loadProfileFromFile(f, false);
-            }
+        ProfileSummary[] listed = new ProfileSummary[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            listed[i] = profileIndex.get(new File(paths[i]));
+            if (listed[i] != null) registerProfile(listed[i]);
         }
-        
-        if (!profileSelector.getItems().isEmpty()) {
-            profileSelector.getSelectionModel().selectFirst();
+        selectFirstListed(listed);
+
+        // 2. Check every file in the background: new and changed profiles are (re)read
+        //    in parallel and listed as they arrive, deleted ones are dropped
+        List<CompletableFuture<Void>> checks = new ArrayList<>();
+        ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < paths.length; i++) {
+            int index = i;
+            File f = new File(paths[i]);
+            ProfileSummary cached = listed[i];
+            checks.add(CompletableFuture.supplyAsync(() -> refreshSummary(f, cached), loader)
+                    .thenAcceptAsync(fresh -> replaceListed(listed, index, f, fresh), Platform::runLater));
+        }
+        loader.shutdown();
+
+        // 3. Render only the final selection; keep the index for the next start
+        CompletableFuture.allOf(checks.toArray(new CompletableFuture[0])).whenCompleteAsync((ok, error) -> {
+            selectFirstListed(listed);
+            CompletableFuture.runAsync(profileIndex::save);
+        }, Platform::runLater);
+    }
+
+    // Background thread. The cached summary if the file did not change, null if it is gone or unreadable
+    private static ProfileSummary refreshSummary(File file, ProfileSummary cached) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            if (cached != null && ProfileIndex.isCurrent(cached, attributes)) return cached;
+            return ProfileService.loadSummary(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Error al cargar perfil: " + file.getName());
+            return cached; // Share unreachable: keep what the index had
+        }
+    }
+
+    private void replaceListed(ProfileSummary[] listed, int index, File file, ProfileSummary fresh) {
+        ProfileSummary shown = listed[index];
+        if (fresh == shown) return;
+
+        listed[index] = fresh;
+        forgetProfile(ProfileIndex.key(file));
+        boolean wasSelected = shown != null && profileSelector.getValue() == shown;
+        int at = shown == null ? -1 : profileSelector.getItems().indexOf(shown);
+
+        if (fresh == null) {
+            profileIndex.remove(file);
+            if (at >= 0) profileSelector.getItems().remove(at);
+            if (wasSelected && !profileSelector.getItems().isEmpty()) profileSelector.getSelectionModel().selectFirst();
+            return;
+        }
+
+        profileIndex.put(fresh);
+        if (at >= 0) {
+            profileSelector.getItems().set(at, fresh);
+        } else {
+            registerProfile(fresh);
+        }
+        if (wasSelected) profileSelector.getSelectionModel().select(fresh);
+    }
+
+    // The first saved profile that is listed, unless the user already picked one
+    private void selectFirstListed(ProfileSummary[] listed) {
+        if (profileSelector.getValue() != null) return;
+        for (ProfileSummary summary : listed) {
+            if (summary != null) {
+                profileSelector.getSelectionModel().select(summary);
+                return;
+            }
         }
     }
     
@@ -220,7 +332,10 @@ public class MainView {
             try {
                 // --- Reset Logic ---
                 prefs.remove(KEY_SAVED_PROFILES);
-                profileSourceMap.clear();
+                profileIndex.clear();
+                profileIndex.save();
+                loadedProfiles.clear();
+                formCache.clear();
                 
                 // Force UI Reset (Prompt Text fix)
                 profileSelector.getSelectionModel().clearSelection();
@@ -242,10 +357,24 @@ public class MainView {
     private void loadProfileFromFile(File file, boolean saveState) {
         try {
             AppProfile profile = ProfileService.loadProfile(file);
-            profileSourceMap.put(profile, file);
-            profileSelector.getItems().add(profile);
+            ProfileSummary summary = ProfileService.summarize(file, profile);
+            profileIndex.put(summary);
+            forgetProfile(summary.getPath());
+            loadedProfiles.put(summary.getPath(), profile);
+
+            // The same file added again replaces its entry
+            List<ProfileSummary> items = profileSelector.getItems();
+            int at = -1;
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i).getPath().equals(summary.getPath())) at = i;
+            }
+            if (at >= 0) {
+                items.set(at, summary);
+            } else {
+                registerProfile(summary);
+            }
             
-            profileSelector.getSelectionModel().select(profile);
+            profileSelector.getSelectionModel().select(summary);
             
             if (saveState) saveSession();
             
@@ -254,6 +383,45 @@ public class MainView {
         }
     }
     
+    private void registerProfile(ProfileSummary summary) {
+        profileSelector.getItems().add(summary);
+
+        // Read the template now, so the first print does not wait for the share
+        File templateFile = PathHelper.resolveFullPath(summary.getFile().getParentFile(), summary.getTemplatePath());
+        if (templateFile != null) TemplateCache.getInstance().preload(List.of(templateFile));
+    }
+
+    // Reads the full profile (fields and tables) the first time it is selected
+    private void showProfile(ProfileSummary summary) {
+        AppProfile profile = loadedProfiles.get(summary.getPath());
+        if (profile != null) {
+            renderForm(summary, profile);
+            return;
+        }
+
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return ProfileService.loadProfile(summary.getFile());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenCompleteAsync((loaded, error) -> {
+            if (error != null) {
+                new Alert(Alert.AlertType.ERROR, "No se pudo leer el perfil: " + unwrap(error).getMessage()).show();
+                return;
+            }
+            loadedProfiles.put(summary.getPath(), loaded);
+            // Only if it is still the selected one
+            if (profileSelector.getValue() == summary) renderForm(summary, loaded);
+        }, Platform::runLater);
+    }
+
+    // Drops the parsed profile and its built form (the file changed or the profile was removed)
+    private void forgetProfile(String path) {
+        AppProfile stale = loadedProfiles.remove(path);
+        if (stale != null) formCache.remove(stale);
+    }
+
     // Overloaded helper
     private void loadProfileFromFile(File file) { loadProfileFromFile(file, true); }
 
@@ -268,9 +436,10 @@ public class MainView {
     }
 
     private void removeCurrentProfile() {
-        AppProfile selected = profileSelector.getValue();
+        ProfileSummary selected = profileSelector.getValue();
         if (selected != null) {
-            profileSourceMap.remove(selected);
+            forgetProfile(selected.getPath());
+            profileIndex.remove(selected.getFile());
             profileSelector.getItems().remove(selected);
             saveSession();
             
@@ -301,12 +470,21 @@ public class MainView {
         rootLayout.setCenter(emptyBox);
     }
 
-    private void renderForm(AppProfile profile) {
+    private void renderForm(ProfileSummary summary, AppProfile profile) {
         rootLayout.setCenter(scrollPane);
-        
-        formContainer.getChildren().clear();
-        currentInputMap.clear();
-        currentTableMap.clear();
+
+        BuiltForm form = formCache.get(profile);
+        if (form == null) {
+            form = buildForm(summary, profile);
+            formCache.put(profile, form);
+        }
+        formContainer.getChildren().setAll(form.nodes);
+        currentInputMap = form.inputs;
+        currentTableMap = form.tables;
+    }
+
+    private BuiltForm buildForm(ProfileSummary summary, AppProfile profile) {
+        BuiltForm form = new BuiltForm();
 
         // 1. Simple Fields
         GridPane grid = new GridPane();
@@ -335,11 +513,11 @@ public class MainView {
                 tf.setPrefWidth(300); // Consistent width
                 input = tf;
             }
-            currentInputMap.put(field.getTag(), input);
+            form.inputs.put(field.getTag(), input);
             grid.add(input, 1, row);
             row++;
         }
-        formContainer.getChildren().add(grid);
+        form.nodes.add(grid);
 
         // 2. Tables
         for (TableConfig tableCfg : profile.getTables()) {
@@ -347,23 +525,117 @@ public class MainView {
             // CENTER FIX: Wrap table in a box with max width
             VBox tableBox = builder.createTable(tableCfg);
             tableBox.setMaxWidth(600);
-            formContainer.getChildren().add(tableBox);
-            currentTableMap.put(tableCfg.getTableName(), builder);
+            form.nodes.add(tableBox);
+            form.tables.put(tableCfg.getTableName(), builder);
         }
 
         // 3. Print Button
         Button printBtn = new Button("Generar Reporte");
         printBtn.setStyle("-fx-font-size: 14px; -fx-base: #4CAF50; -fx-text-fill: white; -fx-font-weight: bold;");
         printBtn.setPrefWidth(200); // Fixed nice width
-        printBtn.setOnAction(e -> handlePrint(profile));
+        printBtn.setOnAction(e -> handlePrint(summary.getFile(), profile, false));
+
+        // Same document as a PDF file (archive / email), without the browser or a printer
+        Button pdfBtn = new Button("Exportar PDF...");
+        pdfBtn.setOnAction(e -> handlePrint(summary.getFile(), profile, true));
+
+        // One document per line of a CSV/JSONL file, with a single print dialog
+        Button batchBtn = new Button("Imprimir lote...");
+        batchBtn.setTooltip(new Tooltip("Imprimir un documento por registro de un archivo CSV o JSONL"));
+        batchBtn.setOnAction(e -> handleBatchPrint(summary.getFile(), profile));
+        
+        // Entered data is kept when switching profiles; clearing it is up to the user
+        Button clearBtn = new Button("Limpiar");
+        clearBtn.setTooltip(new Tooltip("Borrar los datos cargados en este formulario"));
+        clearBtn.setOnAction(e -> form.clear());
         
-        formContainer.getChildren().add(new Separator());
-        formContainer.getChildren().add(printBtn);
+        HBox printRow = new HBox(10, printBtn, pdfBtn, batchBtn, clearBtn);
+        printRow.setAlignment(Pos.CENTER);
+
+        form.nodes.add(new Separator());
+        form.nodes.add(printRow);
+        return form;
+    }
+
+    // Nodes and inputs of one profile's form
+    private static final class BuiltForm {
+        final List<Node> nodes = new ArrayList<>();
+        final Map<String, Control> inputs = new HashMap<>();
+        final Map<String, DynamicTableBuilder> tables = new HashMap<>();
+
+        void clear() {
+            for (Control input : inputs.values()) {
+                if (input instanceof DatePicker dp) {
+                    dp.setValue(LocalDate.now());
+                } else if (input instanceof TextField tf) {
+                    tf.clear();
+                }
+            }
+            for (DynamicTableBuilder table : tables.values()) table.getData().clear();
+        }
     }
 
+
     // --- Printing Logic ---
 
-    private void handlePrint(AppProfile profile) {
+    private void exportPdf(File templateFile, Map<String, String> simpleData, List<Map<String, String>> items) {
+        FileChooser fc = new FileChooser();
+        fc.setTitle("Guardar PDF");
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF", "*.pdf"));
+        fc.setInitialFileName(simpleData.get("TEMPLATE_NAME") + ".pdf");
+        File target = fc.showSaveDialog(stage);
+        if (target == null) return;
+
+        // Copy the table rows; the form stays editable while the PDF is written
+        List<Map<String, String>> rows = items == null ? null : items.stream().map(row -> (Map<String, String>) new HashMap<>(row)).toList();
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                new PdfExporter().export(TemplateCache.getInstance().get(templateFile), simpleData, rows,
+                        templateFile.getParentFile(), target.toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenCompleteAsync((ok, error) -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                cause.printStackTrace();
+                new Alert(Alert.AlertType.ERROR, "Error al exportar PDF: " + cause.getMessage()).show();
+            } else {
+                new Alert(Alert.AlertType.INFORMATION, "PDF guardado en:\n" + target.getAbsolutePath()).show();
+            }
+        }, Platform::runLater);
+    }
+
+    private void handleBatchPrint(File profileFile, AppProfile profile) {
+        File templateFile = PathHelper.resolveFullPath(profileFile.getParentFile(), profile.getTemplatePath());
+        if (templateFile == null || !TemplateCache.getInstance().exists(templateFile)) {
+            new Alert(Alert.AlertType.ERROR, "No se encuentra plantilla: " + profile.getTemplatePath()).show();
+            return;
+        }
+
+        FileChooser fc = new FileChooser();
+        fc.setTitle("Seleccionar datos del lote");
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV / JSON / JSONL", "*.csv", "*.jsonl", "*.ndjson", "*.json"));
+        File dataFile = fc.showOpenDialog(stage);
+        if (dataFile == null) return;
+
+        try {
+            // Same rule as the form: the "ITEMS" table, or the first one if it was renamed
+            List<TableConfig> tables = profile.getTables();
+            String itemTable = "ITEMS";
+            if (tables != null && !tables.isEmpty() && tables.stream().noneMatch(t -> "ITEMS".equals(t.getTableName()))) {
+                itemTable = tables.get(0).getTableName();
+            }
+            List<BatchRecord> records = BatchDataReader.read(dataFile, itemTable);
+            printQueue.print(templateFile, profile.getProfileName(), records, tables != null && !tables.isEmpty());
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            new Alert(Alert.AlertType.ERROR, "Error al leer datos del lote: " + ex.getMessage()).show();
+        }
+    }
+
+    private void handlePrint(File profileFile, AppProfile profile, boolean toPdf) {
         try {
             // --- 1. VALIDATION CHECK ---
             // Iterate over all active tables and check for empty rows
@@ -381,17 +653,14 @@ public class MainView {
                 }
             }
             
-            File jsonFile = profileSourceMap.get(profile);
-            File templateFile = PathHelper.resolveFullPath(jsonFile.getParentFile(), profile.getTemplatePath());
+            File templateFile = PathHelper.resolveFullPath(profileFile.getParentFile(), profile.getTemplatePath());
 
-            if (templateFile == null || !templateFile.exists()) {
+            if (templateFile == null || !TemplateCache.getInstance().exists(templateFile)) {
                 new Alert(Alert.AlertType.ERROR, "No se encuentra plantilla: " + profile.getTemplatePath()).show();
                 return;
             }
 
-            // --- 2. READ & PROCESS TEMPLATE ---
-            String html = Files.readString(templateFile.toPath());
-            ReportGenerator generator = new ReportGenerator();
+            // --- 2. COLLECT FORM DATA (FX thread) ---
             Map<String, String> simpleData = new HashMap<>();
             
             simpleData.put("TEMPLATE_NAME", profile.getProfileName());
@@ -406,64 +675,37 @@ public class MainView {
                 }
             }
 
-            // Process Simple Fields (Name, Date, DNI, etc.)
-            html = generator.processSimpleFields(html, simpleData);
-
             // Process the Main Item List
             // Instead of a loop that blindly generates tables, we specifically target 
             // your main data table to fill the {{#ITEMS}} block.
 
             // Ensure "ITEMS" matches the 'tableName' in your profile.json exactly.
             // TODO: Don't rely on the table being named "ITEMS" - make it configurable in the future.
+            List<Map<String, String>> items = null;
             if (currentTableMap.containsKey("ITEMS")) {
-                html = generator.processRepeatedItems(html, currentTableMap.get("ITEMS").getData());
+                items = currentTableMap.get("ITEMS").getData();
             } 
             // Safety Fallback: If table was renamed, just use the first one found
             else if (!currentTableMap.isEmpty()) {
-                var firstTableData = currentTableMap.values().iterator().next().getData();
-                html = generator.processRepeatedItems(html, firstTableData);
+                items = currentTableMap.values().iterator().next().getData();
             }
 
-            // --- 3. LOAD INTO INVISIBLE BROWSER & PRINT ---
-            String baseUrl = templateFile.getParentFile().toURI().toString();
-
-            // Inject the <base> tag into the HTML <head>
-            // This tells the browser: "Resolve '../logo.jpg' starting from this folder"
-            String baseTag = "<base href=\"" + baseUrl + "\">";
-            
-            if (html.contains("<head>")) {
-                html = html.replace("<head>", "<head>\n    " + baseTag);
-            } else {
-                // Fallback just in case
-                html = "<html><head>" + baseTag + "</head>" + html.substring(html.indexOf("<html>") + 6);
-            }
-
-            WebEngine engine = invisibleBrowser.getEngine();
-            
-            ChangeListener<Worker.State> printListener = new ChangeListener<>() {
-            @Override
-            public void changed(ObservableValue<? extends Worker.State> obs, 
-                                Worker.State oldState, 
-                                Worker.State newState) {
-                
-                if (newState == Worker.State.SUCCEEDED) {
-                    // Remove this listener immediately so it doesn't fire next time
-                    engine.getLoadWorker().stateProperty().removeListener(this);
-                    // Trigger Print
-                    printWeb(invisibleBrowser);
-                } else if (newState == Worker.State.FAILED) {
-                    // Debugging helper: Check if it fails
-                    System.err.println("WebView falló al cargar contenido.");
-                    engine.getLoadWorker().stateProperty().removeListener(this);
-                }
+            if (toPdf) {
+                exportPdf(templateFile, simpleData, items);
+                return;
             }
-        };
 
-        // Attach the self-destructing listener
-        engine.getLoadWorker().stateProperty().addListener(printListener);
-
-        // Load content triggers the listener
-        engine.loadContent(html);
+            // --- 3. READ, RENDER, LAYOUT & PRINT ---
+            // Reading and rendering run in the background; the pipeline hands the page to the
+            // invisible browser when it is free, so quick repeated clicks are printed in order.
+            printPipeline.submit(templateFile, simpleData, items)
+                .whenCompleteAsync((timings, error) -> {
+                    if (error != null) {
+                        Throwable cause = unwrap(error);
+                        cause.printStackTrace();
+                        new Alert(Alert.AlertType.ERROR, "Error al generar reporte: " + cause.getMessage()).show();
+                    }
+                }, Platform::runLater);
 
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -471,20 +713,12 @@ public class MainView {
         }
     }
 
-    private void printWeb(WebView web) {
-        PrinterJob job = PrinterJob.createPrinterJob();
-        if (job != null && job.showPrintDialog(stage)) {
-            // Remove default margins by setting to minimum
-            javafx.print.Printer printer = job.getPrinter();
-            javafx.print.PageLayout pageLayout = printer.createPageLayout(
-                    javafx.print.Paper.A4, 
-                    javafx.print.PageOrientation.PORTRAIT, 
-                    javafx.print.Printer.MarginType.HARDWARE_MINIMUM);
-            job.getJobSettings().setPageLayout(pageLayout);
-            
-            // Print
-            web.getEngine().print(job);
-            job.endJob();
+    // Background failures arrive wrapped; show the original message
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException) && cause.getCause() != null) {
+            cause = cause.getCause();
         }
+        return cause;
     }
-}
\ No newline at end of file
+}
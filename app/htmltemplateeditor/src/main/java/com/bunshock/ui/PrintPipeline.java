@@ -0,0 +1,264 @@
+package com.bunshock.ui;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.bunshock.service.CompiledTemplate;
+import com.bunshock.service.FlightEvents;
+import com.bunshock.service.HeadInjectingWriter;
+import com.bunshock.service.Metrics;
+import com.bunshock.service.RenderedDocumentCache;
+import com.bunshock.service.ReportGenerator;
+import com.bunshock.service.TemplateCache;
+
+import javafx.application.Platform;
+import javafx.concurrent.Worker;
+import javafx.scene.web.WebView;
+import javafx.stage.Stage;
+
+/**
+ * Prints documents through one shared (invisible) WebView.
+ *
+ * Stages: read (compiled template) and render (temp file) run on a background thread;
+ * only layout (loading the page) and print run on the FX thread. Jobs go through the
+ * WebView one at a time, in the order they were submitted. Rendered documents are cached
+ * ({@link RenderedDocumentCache}), and printing the page already shown skips layout too.
+ */
+public class PrintPipeline {
+    private final WebView browser;
+    private final Stage owner;
+    private final ReportGenerator generator = new ReportGenerator();
+    private final ExecutorService prepare = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "print-prepare");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Last job in the queue; the next one waits for it (FX thread only)
+    private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+    // Job whose page is loading; completed by the single load listener
+    private CompletableFuture<Void> loading;
+    // Cache key of the page currently laid out in the WebView (FX thread only)
+    private String shownKey;
+
+    public PrintPipeline(WebView browser, Stage owner) {
+        this.browser = browser;
+        this.owner = owner;
+
+        // One listener for the lifetime of the WebView instead of one per print
+        browser.getEngine().getLoadWorker().stateProperty().addListener((obs, oldState, newState) -> {
+            if (loading == null) return;
+            if (newState == Worker.State.SUCCEEDED) {
+                CompletableFuture<Void> done = loading;
+                loading = null;
+                done.complete(null);
+            } else if (newState == Worker.State.FAILED || newState == Worker.State.CANCELLED) {
+                CompletableFuture<Void> done = loading;
+                loading = null;
+                done.completeExceptionally(new IOException("WebView falló al cargar contenido."));
+            }
+        });
+    }
+
+    /**
+     * Queues a document that gets its own print dialog. Call on the FX thread; the data is copied,
+     * so the form can keep changing. The future completes (on the FX thread) after printing, or with the first error.
+     */
+    public CompletableFuture<Timings> submit(File templateFile, Map<String, String> simpleData,
+                                             List<Map<String, String>> items) {
+        return submit(templateFile, simpleData, items, null);
+    }
+
+    /**
+     * Queues a document printed into an already open session (no dialog; the caller ends the session).
+     */
+    public CompletableFuture<Timings> submit(File templateFile, Map<String, String> simpleData,
+                                             List<Map<String, String>> items, PrintSession session) {
+        Map<String, String> data = new HashMap<>(simpleData);
+        List<Map<String, String>> rows = null;
+        if (items != null) {
+            rows = new ArrayList<>(items.size());
+            for (Map<String, String> row : items) rows.add(new HashMap<>(row));
+        }
+        final List<Map<String, String>> itemRows = rows;
+
+        Timings timings = new Timings();
+        CompletableFuture<Prepared> prepared = CompletableFuture.supplyAsync(
+                () -> prepare(templateFile, data, itemRows, timings), prepare);
+
+        CompletableFuture<Timings> job = tail.handle((ignored, previousError) -> null)
+                .thenCombine(prepared, (ignored, document) -> document)
+                .thenComposeAsync(document -> layoutAndPrint(document, timings, session)
+                        .whenComplete((ok, e) -> deleteQuietly(document.htmlFile)), Platform::runLater)
+                .thenApply(ignored -> timings);
+        tail = job;
+
+        job.whenComplete((t, e) -> {
+            if (e == null) {
+                if (!t.skipped) t.record(Metrics.getInstance());
+            } else {
+                Metrics.getInstance().counter("print.errors").increment();
+            }
+        });
+        return job;
+    }
+
+    // Background thread: stages 1-2
+    private Prepared prepare(File templateFile, Map<String, String> data, List<Map<String, String>> items, Timings timings) {
+        try {
+            // 1. Read: compiled once per template file and reused until the file changes
+            long start = System.nanoTime();
+            CompiledTemplate template = TemplateCache.getInstance().get(templateFile);
+            timings.read = System.nanoTime() - start;
+
+            // 2. Render: a reprint of the same document reuses the cached HTML;
+            //    the <base> tag resolves '../logo.jpg' from the template folder
+            start = System.nanoTime();
+            String headTags = HeadInjectingWriter.baseTags(templateFile.getParentFile());
+            RenderedDocumentCache cache = RenderedDocumentCache.getInstance();
+            String key = RenderedDocumentCache.key(template, headTags, data, items);
+            byte[] html = cache.get(key);
+            timings.cached = html != null;
+            if (html == null) {
+                html = generator.renderToBytes(template, data, items, headTags);
+                cache.put(key, html);
+            }
+            Path htmlFile = Files.createTempFile("reporte-", ".html");
+            htmlFile.toFile().deleteOnExit();
+            Files.write(htmlFile, html);
+            timings.render = System.nanoTime() - start;
+            return new Prepared(key, htmlFile, templateFile.getPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // FX thread: stages 3-4
+    private CompletableFuture<Void> layoutAndPrint(Prepared document, Timings timings, PrintSession session) {
+        // A cancelled batch skips the documents still queued
+        if (session != null && session.isCancelled()) {
+            timings.skipped = true;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long start = System.nanoTime();
+        FlightEvents.WebViewLoad loadEvent = new FlightEvents.WebViewLoad();
+        loadEvent.begin();
+        loadEvent.templatePath = document.templatePath;
+        CompletableFuture<Void> loaded;
+        if (document.key.equals(shownKey)) {
+            loadEvent.reused = true;
+            // Reprint (second copy, paper jam): the page is still laid out in the WebView
+            loaded = CompletableFuture.completedFuture(null);
+        } else {
+            shownKey = null;
+            loading = new CompletableFuture<>();
+            loaded = loading;
+            browser.getEngine().load(document.htmlFile.toUri().toString());
+        }
+
+        return loaded.thenRun(() -> {
+            shownKey = document.key;
+            timings.layout = System.nanoTime() - start;
+            loadEvent.commit();
+            if (session != null) {
+                print(session, timings, document);
+            } else {
+                PrintSession single = PrintSession.open(owner);
+                if (single != null) {
+                    try {
+                        print(single, timings, document);
+                    } finally {
+                        single.end();
+                    }
+                    if (single.getLost() > 0) throw new IllegalStateException("La impresora no recibió el documento");
+                }
+            }
+        });
+    }
+
+    private void print(PrintSession session, Timings timings, Prepared document) {
+        // The dialog is not counted
+        long start = System.nanoTime();
+        FlightEvents.Print event = new FlightEvents.Print();
+        event.begin();
+        if (!session.print(browser.getEngine())) {
+            // Cancelled while the page was loading
+            timings.skipped = true;
+            return;
+        }
+        timings.print = System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit()) {
+            event.templatePath = document.templatePath;
+            event.printer = session.getPrinterName();
+            event.commit();
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("No se pudo borrar archivo temporal: " + file);
+        }
+    }
+
+    // Rendered temp file plus its cache key
+    private static final class Prepared {
+        final String key;
+        final Path htmlFile;
+        final String templatePath;
+
+        Prepared(String key, Path htmlFile, String templatePath) {
+            this.key = key;
+            this.htmlFile = htmlFile;
+            this.templatePath = templatePath;
+        }
+    }
+
+    /** Time spent in each stage, in nanoseconds. */
+    public static class Timings {
+        volatile long read;
+        volatile long render;
+        volatile long layout;
+        volatile long print;
+        volatile boolean cached;
+        volatile boolean skipped;
+
+        public long getRead() { return read; }
+        public long getRender() { return render; }
+        public long getLayout() { return layout; }
+        public long getPrint() { return print; }
+        /** True if the rendered HTML came from {@link RenderedDocumentCache}. */
+        public boolean isCached() { return cached; }
+        /** True if the session was cancelled before the document was printed. */
+        public boolean isSkipped() { return skipped; }
+
+        // Layout is the WebView load; a reprint of the shown document skips it
+        void record(Metrics metrics) {
+            metrics.timer("print.read").record(read);
+            metrics.timer("print.render").record(render);
+            metrics.timer("print.layout").record(layout);
+            metrics.timer("print.print").record(print);
+            metrics.timer("print.total").record(read + render + layout + print);
+            if (cached) metrics.counter("print.cached").increment();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("lectura %.1f ms | render %.1f ms%s | maquetación %.1f ms | impresión %.1f ms",
+                    read / 1e6, render / 1e6, cached ? " (caché)" : "", layout / 1e6, print / 1e6);
+        }
+    }
+}
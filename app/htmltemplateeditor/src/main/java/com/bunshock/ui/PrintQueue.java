@@ -0,0 +1,152 @@
+package com.bunshock.ui;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bunshock.model.BatchRecord;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+
+/**
+ * Prints many documents with a single print dialog and printer job.
+ *
+ * Documents go through the {@link PrintPipeline} in order; a couple of them are prepared
+ * ahead while the current one prints. A small window shows progress and lets the user cancel.
+ * FX thread only.
+ */
+public class PrintQueue {
+    private static final int LOOKAHEAD = 2;
+
+    private final PrintPipeline pipeline;
+    private final Stage owner;
+
+    public PrintQueue(PrintPipeline pipeline, Stage owner) {
+        this.pipeline = pipeline;
+        this.owner = owner;
+    }
+
+    /**
+     * Prints one document per record. Item rows are only used when withItems is set.
+     */
+    public void print(File templateFile, String templateName, List<BatchRecord> records, boolean withItems) {
+        if (records.isEmpty()) return;
+
+        // 1. One dialog for the whole run
+        PrintSession session = PrintSession.open(owner);
+        if (session == null) return;
+
+        // 2. Progress window
+        Label status = new Label();
+        ProgressBar bar = new ProgressBar(0);
+        bar.setPrefWidth(300);
+        Button cancel = new Button("Cancelar");
+        cancel.setOnAction(e -> {
+            session.cancel();
+            cancel.setDisable(true);
+            status.setText("Cancelando...");
+        });
+
+        VBox box = new VBox(10, status, bar, cancel);
+        box.setAlignment(Pos.CENTER);
+        box.setPadding(new Insets(20));
+        Stage window = new Stage(StageStyle.UTILITY);
+        window.initOwner(owner);
+        window.setTitle("Imprimiendo lote");
+        window.setScene(new Scene(box));
+        window.setOnCloseRequest(e -> cancel.fire());
+        window.show();
+
+        // 3. Feed the pipeline
+        new Run(templateFile, templateName, records, withItems, session, status, bar, window).start();
+    }
+
+    private class Run {
+        private final File templateFile;
+        private final String templateName;
+        private final List<BatchRecord> records;
+        private final boolean withItems;
+        private final PrintSession session;
+        private final Label status;
+        private final ProgressBar bar;
+        private final Stage window;
+
+        private int submitted;
+        private int finished;
+        private int failed;
+        private int skipped;
+
+        Run(File templateFile, String templateName, List<BatchRecord> records, boolean withItems,
+            PrintSession session, Label status, ProgressBar bar, Stage window) {
+            this.templateFile = templateFile;
+            this.templateName = templateName;
+            this.records = records;
+            this.withItems = withItems;
+            this.session = session;
+            this.status = status;
+            this.bar = bar;
+            this.window = window;
+        }
+
+        void start() {
+            updateProgress();
+            while (submitted < Math.min(LOOKAHEAD, records.size())) submitNext();
+        }
+
+        private void submitNext() {
+            BatchRecord record = records.get(submitted++);
+            Map<String, String> data = new HashMap<>(record.getFields());
+            data.putIfAbsent("TEMPLATE_NAME", templateName);
+
+            pipeline.submit(templateFile, data, withItems ? record.getItems() : null, session)
+                .whenCompleteAsync((timings, error) -> {
+                    finished++;
+                    if (error != null) {
+                        failed++;
+                        System.err.println("Error al imprimir registro " + record.getKey() + ": " + error.getMessage());
+                    } else if (timings.isSkipped()) {
+                        skipped++;
+                    }
+                    if (submitted < records.size() && !session.isCancelled()) submitNext();
+                    updateProgress();
+                    if (finished == submitted && (submitted == records.size() || session.isCancelled())) finish();
+                }, Platform::runLater);
+        }
+
+        private void updateProgress() {
+            if (!session.isCancelled()) {
+                status.setText("Imprimiendo " + Math.min(finished + 1, records.size()) + " de " + records.size());
+            }
+            bar.setProgress((double) finished / records.size());
+        }
+
+        private void finish() {
+            session.end();
+            window.close();
+
+            int lost = session.getLost();
+            int printed = finished - failed - lost - skipped;
+            // Skipped after a cancel, plus the records never queued
+            int notPrinted = skipped + records.size() - submitted;
+            if (failed > 0 || lost > 0 || session.isCancelled()) {
+                new Alert(failed > 0 || lost > 0 ? Alert.AlertType.WARNING : Alert.AlertType.INFORMATION,
+                        "Documentos impresos: " + printed + " de " + records.size()
+                        + (failed > 0 ? "\nCon errores: " + failed : "")
+                        + (lost > 0 ? "\nPerdidos por un error de la impresora (hay que reimprimirlos): " + lost : "")
+                        + (notPrinted > 0 ? "\nNo impresos: " + notPrinted : "")
+                        + (session.isCancelled() ? "\nImpresión cancelada." : "")).show();
+            }
+        }
+    }
+}
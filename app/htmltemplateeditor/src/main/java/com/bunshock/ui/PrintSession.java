@@ -0,0 +1,131 @@
+package com.bunshock.ui;
+
+import javafx.print.JobSettings;
+import javafx.print.PageLayout;
+import javafx.print.PageOrientation;
+import javafx.print.Paper;
+import javafx.print.Printer;
+import javafx.print.PrinterJob;
+import javafx.scene.web.WebEngine;
+import javafx.stage.Window;
+
+/**
+ * One configured printer job (printer, A4 layout, copies...) shared by any number of documents.
+ * The print dialog is shown once, when the session is opened. FX thread only.
+ *
+ * JavaFX printing has no page-level status or retry: a job in ERROR state is lost as a whole,
+ * with every page sent to it so far. So a failed document is sent again on a fresh job, and the
+ * documents printed earlier into the failed job are counted as lost ({@link #getLost()}).
+ */
+public class PrintSession {
+    private static final int MAX_ATTEMPTS = 3;
+
+    private PrinterJob job;                  // null once no printer is available
+    private final PageLayout pageLayout;
+    private volatile boolean cancelled;
+    private int pending;                     // Documents in the current job, not yet sent
+    private int lost;
+
+    private PrintSession(PrinterJob job) {
+        this.job = job;
+        // Remove default margins by setting to minimum
+        this.pageLayout = job.getPrinter().createPageLayout(
+                Paper.A4, PageOrientation.PORTRAIT, Printer.MarginType.HARDWARE_MINIMUM);
+        job.getJobSettings().setPageLayout(pageLayout);
+    }
+
+    /**
+     * Shows the print dialog. Returns null if there is no printer or the user cancelled.
+     */
+    public static PrintSession open(Window owner) {
+        PrinterJob job = PrinterJob.createPrinterJob();
+        if (job == null || !job.showPrintDialog(owner)) return null;
+        return new PrintSession(job);
+    }
+
+    /**
+     * Prints the loaded page. If the printer reports an error the failed job is cancelled and
+     * the document is sent again (up to 3 attempts) on a fresh job with the same settings.
+     * Returns false if the session was cancelled.
+     *
+     * @throws IllegalStateException after the third error, or when the printer is gone;
+     *         in the latter case the session stops (see {@link #isCancelled()})
+     */
+    public boolean print(WebEngine engine) {
+        if (isCancelled()) return false;
+
+        for (int attempt = 1; ; attempt++) {
+            engine.print(job);
+            if (job.getJobStatus() != PrinterJob.JobStatus.ERROR) {
+                pending++;
+                return true;
+            }
+            discardFailedJob();
+            if (job == null) throw new IllegalStateException("No hay impresora disponible");
+            if (attempt == MAX_ATTEMPTS) {
+                throw new IllegalStateException("La impresora informó un error tras " + MAX_ATTEMPTS + " intentos");
+            }
+        }
+    }
+
+    /**
+     * Stops printing further documents; the one being printed finishes.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Cancelled by the user, or stopped because no printer is available. */
+    public boolean isCancelled() {
+        return cancelled || job == null;
+    }
+
+    /**
+     * Documents that had printed successfully but were lost when their job failed
+     * later (during another document or at {@link #end()}); they must be printed again.
+     */
+    public int getLost() {
+        return lost;
+    }
+
+    public String getPrinterName() {
+        return job == null ? "" : job.getPrinter().getName();
+    }
+
+    /**
+     * Sends everything to the printer. Call once, after the last document.
+     */
+    public void end() {
+        if (job == null) return;
+        if (pending == 0) {
+            job.cancelJob(); // Nothing printed into it (e.g. the fresh job after a failure)
+        } else if (job.getJobStatus() == PrinterJob.JobStatus.ERROR || !job.endJob()) {
+            job.cancelJob();
+            lost += pending;
+        }
+        pending = 0;
+    }
+
+    // A job in ERROR state cannot be used again: cancel it (its documents are lost) and start a
+    // fresh one, or leave job null when the printer is no longer available
+    private void discardFailedJob() {
+        PrinterJob failed = job;
+        failed.cancelJob();
+        lost += pending;
+        pending = 0;
+        job = recreate(failed);
+    }
+
+    private PrinterJob recreate(PrinterJob failed) {
+        JobSettings old = failed.getJobSettings();
+        PrinterJob fresh = PrinterJob.createPrinterJob(failed.getPrinter());
+        if (fresh == null) return null;
+        fresh.getJobSettings().setPageLayout(pageLayout);
+        fresh.getJobSettings().setCopies(old.getCopies());
+        fresh.getJobSettings().setCollation(old.getCollation());
+        fresh.getJobSettings().setPrintColor(old.getPrintColor());
+        fresh.getJobSettings().setPrintSides(old.getPrintSides());
+        fresh.getJobSettings().setPrintQuality(old.getPrintQuality());
+        return fresh;
+    }
+}
@@ -0,0 +1,82 @@
+package com.bunshock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class BatchLauncherTest
+{
+    @Test
+    public void parsesOptionPairsAndRejectsIncompleteOnes()
+    {
+        Map<String, String> options = BatchLauncher.parseArgs(new String[] {
+            "--profile", "p.json", "--data", "d.csv", "--out", "salida", "--threads", "4" });
+        assertEquals("p.json", options.get("profile"));
+        assertEquals("salida", options.get("out"));
+        assertEquals("4", options.get("threads"));
+
+        assertNull(BatchLauncher.parseArgs(new String[] { "--profile", "p.json", "--data", "d.csv" }));
+        assertNull(BatchLauncher.parseArgs(new String[] { "--profile", "p.json", "--data", "d.csv", "--out" }));
+        assertNull(BatchLauncher.parseArgs(new String[] { "profile", "p.json", "--data", "d.csv", "--out", "o" }));
+    }
+
+    @Test
+    public void outputNamesAreNumberedAndSafe()
+    {
+        assertEquals("00001_A-12.html", BatchLauncher.fileName(0, "A-12", "html"));
+        assertEquals("00042_P_rez_2_.pdf", BatchLauncher.fileName(41, "Pérez/2?", "pdf"));
+        assertEquals("00003_.html", BatchLauncher.fileName(2, null, "html"));
+    }
+
+    @Test
+    public void countsAndReportsFailedDocuments() throws Exception
+    {
+        Path dir = Files.createTempDirectory("batch");
+        Files.writeString(dir.resolve("plantilla.html"), "<p>{{NOMBRE}}</p>{{#ITEMS}}<i>{{BRAND}}</i>{{/ITEMS}}");
+        Path profile = dir.resolve("perfil.json");
+        Files.writeString(profile, "{\"profileName\": \"Prueba\", \"templatePath\": \"plantilla.html\","
+            + " \"tables\": [{\"tableName\": \"ITEMS\", \"columns\": []}]}");
+        Path data = dir.resolve("datos.csv");
+        Files.writeString(data, "ID,NOMBRE,ITEMS.BRAND\n1,Juan,Acme\n2,Ana,Beta\n3,Luis,\n");
+        Path out = dir.resolve("salida");
+        Files.createDirectories(out.resolve("00002_2.html")); // Cannot be written as a file
+
+        int failed;
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+            System.setErr(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+            failed = BatchLauncher.run(profile.toFile(), data.toFile(), out, 2);
+        } finally {
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+        String summary = captured.toString(StandardCharsets.UTF_8);
+
+        assertEquals(1, failed);
+        assertTrue(summary, summary.contains("Documentos: 3 (errores: 1), concurrencia: 2"));
+        assertTrue(read(out.resolve("00001_1.html")).contains("<p>Juan</p><i>Acme</i>"));
+        assertTrue(Files.isDirectory(out.resolve("00002_2.html")));
+        String third = read(out.resolve("00003_3.html"));
+        assertTrue(third.contains("<p>Luis</p>"));
+        assertFalse(third.contains("<i>")); // Blank item row dropped
+    }
+
+    private static String read(Path file) throws IOException
+    {
+        return Files.readString(file, StandardCharsets.UTF_8);
+    }
+}
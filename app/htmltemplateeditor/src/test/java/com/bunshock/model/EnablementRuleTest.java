@@ -0,0 +1,57 @@
+package com.bunshock.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class EnablementRuleTest
+{
+    private static EnablementRule compile(String json)
+    {
+        return EnablementRule.compile(new Gson().fromJson(json, FieldConfig.ConditionConfig.class));
+    }
+
+    private static Map<String, String> row(String... tagsAndValues)
+    {
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < tagsAndValues.length; i += 2) row.put(tagsAndValues[i], tagsAndValues[i + 1]);
+        return row;
+    }
+
+    @Test
+    public void singleTagKeepsTheOldMeaning()
+    {
+        EnablementRule rule = compile("{\"tag\": \"TIPO\", \"values\": [\"Producto\", \"\"]}");
+
+        assertTrue(rule.test(row("TIPO", "Producto")));
+        assertTrue(rule.test(row())); // Missing counts as ""
+        assertFalse(rule.test(row("TIPO", "Servicio")));
+        assertEquals(new HashSet<>(Arrays.asList("TIPO")), rule.getControllingTags());
+        assertSame(EnablementRule.ALWAYS, EnablementRule.compile(null));
+    }
+
+    @Test
+    public void combinesFieldsWithAllAndAny()
+    {
+        EnablementRule rule = compile("{\"all\": ["
+            + "{\"tag\": \"TIPO\", \"values\": [\"Producto\"]},"
+            + "{\"any\": [{\"tag\": \"PAIS\", \"values\": [\"AR\"]}, {\"tag\": \"IVA\", \"values\": [\"Exento\"]}]}"
+            + "]}");
+
+        assertTrue(rule.test(row("TIPO", "Producto", "PAIS", "AR")));
+        assertTrue(rule.test(row("TIPO", "Producto", "PAIS", "UY", "IVA", "Exento")));
+        assertFalse(rule.test(row("TIPO", "Producto", "PAIS", "UY")));
+        assertFalse(rule.test(row("TIPO", "Servicio", "PAIS", "AR")));
+        assertEquals(new HashSet<>(Arrays.asList("TIPO", "PAIS", "IVA")), rule.getControllingTags());
+    }
+}
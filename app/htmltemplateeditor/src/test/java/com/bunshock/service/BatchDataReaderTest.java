@@ -0,0 +1,79 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.bunshock.model.BatchRecord;
+
+public class BatchDataReaderTest
+{
+    @Test
+    public void csvGroupsConsecutiveLinesIntoOneRecord() throws IOException
+    {
+        String csv = "\uFEFFID;NOMBRE;ITEMS.BRAND;ITEMS.MODEL\r\n" +
+            "1;Juan;Acme;X1\r\n" +
+            "1;Juan;;\"X;2\"\r\n" +
+            "2;\"Ana \"\"la\"\"\nPérez\";;\r\n";
+        List<BatchRecord> records = BatchDataReader.readCsv(new BufferedReader(new StringReader(csv)), "ITEMS");
+
+        assertEquals(2, records.size());
+        assertEquals("Juan", records.get(0).getFields().get("NOMBRE"));
+        assertEquals("1", records.get(0).getFields().get("ID"));
+        assertEquals(2, records.get(0).getItems().size());
+        assertEquals("X;2", records.get(0).getItems().get(1).get("MODEL"));
+        assertEquals("Ana \"la\"\nPérez", records.get(1).getFields().get("NOMBRE"));
+        assertEquals(0, records.get(1).getItems().size());
+    }
+
+    @Test
+    public void csvHeaderLongerThanAnyBufferStillDetectsTheSeparator() throws IOException
+    {
+        StringBuilder csv = new StringBuilder("ID;ITEMS.BRAND");
+        for (int i = 0; i < 10000; i++) csv.append(";\"COLUMNA, NUMERO ").append(i).append('"');
+        csv.append("\n1;Acme\n");
+        List<BatchRecord> records = BatchDataReader.readCsv(new BufferedReader(new StringReader(csv.toString())), "ITEMS");
+
+        assertEquals(1, records.size());
+        assertEquals("Acme", records.get(0).getItems().get(0).get("BRAND"));
+        assertEquals("", records.get(0).getFields().get("COLUMNA, NUMERO 9999"));
+    }
+
+    @Test
+    public void jsonLinesReadFieldsAndItems() throws IOException
+    {
+        String jsonl = "{\"NOMBRE\": \"Zoe\", \"DNI\": 123, \"items\": [{\"BRAND\": \"B\", \"MODEL\": null}]}\n\n";
+        List<BatchRecord> records = BatchDataReader.readJsonLines(new BufferedReader(new StringReader(jsonl)), "ITEMS");
+
+        assertEquals(1, records.size());
+        assertEquals("123", records.get(0).getFields().get("DNI"));
+        assertEquals("", records.get(0).getItems().get(0).get("MODEL"));
+    }
+
+    @Test
+    public void jsonArrayReadsEveryDocument() throws IOException
+    {
+        String json = "\uFEFF\n[\n  {\n    \"NOMBRE\": \"Zoe\",\n    \"ITEMS\": [{\"BRAND\": \"B\"}]\n  },\n  {\"NOMBRE\": \"Ana\"}\n]\n";
+        List<BatchRecord> records = BatchDataReader.readJson(new BufferedReader(new StringReader(json)), "ITEMS");
+
+        assertEquals(2, records.size());
+        assertEquals("Zoe", records.get(0).getFields().get("NOMBRE"));
+        assertEquals("B", records.get(0).getItems().get(0).get("BRAND"));
+        assertEquals("2", records.get(1).getKey());
+    }
+
+    @Test
+    public void jsonWithoutArrayIsReadAsLines() throws IOException
+    {
+        String json = "\n{\"NOMBRE\": \"Zoe\"}\n{\"NOMBRE\": \"Ana\"}\n";
+        List<BatchRecord> records = BatchDataReader.readJson(new BufferedReader(new StringReader(json)), "ITEMS");
+
+        assertEquals(2, records.size());
+        assertEquals("3", records.get(1).getKey());
+    }
+}
@@ -0,0 +1,168 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.bunshock.model.AppProfile;
+import com.bunshock.service.BatchRenderService.RenderJob;
+import com.bunshock.service.BatchRenderService.RenderResult;
+
+public class BatchRenderServiceTest
+{
+    @Test
+    public void publishesOneResultPerJobOnlyAfterSubscribing() throws Exception
+    {
+        Path dir = Files.createTempDirectory("batch");
+        Files.writeString(dir.resolve("plantilla.html"), "<p>{{NOMBRE}}</p>");
+        AppProfile profile = new AppProfile();
+        profile.setTemplatePath("plantilla.html");
+        File profileFile = dir.resolve("perfil.json").toFile();
+
+        try (BatchRenderService service = new BatchRenderService(3)) {
+            Flow.Publisher<RenderResult> publisher = service.publish(IntStream.range(0, 20).mapToObj(i ->
+                new RenderJob(profile, profileFile, Map.of("NOMBRE", "N" + i), null, dir.resolve(i + ".html"), i)));
+
+            Thread.sleep(100);
+            assertFalse(Files.exists(dir.resolve("0.html"))); // Nothing rendered without a subscriber
+
+            Collector collector = new Collector(Long.MAX_VALUE);
+            publisher.subscribe(collector);
+            assertTrue(collector.done.await(10, TimeUnit.SECONDS));
+
+            assertNull(collector.error.get());
+            assertEquals(20, collector.results.size());
+            Set<Object> tags = new HashSet<>();
+            for (RenderResult result : collector.results) {
+                assertTrue(result.isSuccess());
+                tags.add(result.getJob().getTag());
+            }
+            assertEquals(20, tags.size());
+            assertTrue(Files.readString(dir.resolve("7.html"), StandardCharsets.UTF_8).contains("<p>N7</p>"));
+
+            // The stream is consumed once
+            Collector second = new Collector(Long.MAX_VALUE);
+            publisher.subscribe(second);
+            assertTrue(second.done.await(1, TimeUnit.SECONDS));
+            assertTrue(second.error.get() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void neverRendersMoreThanMaxConcurrencyAtOnce() throws Exception
+    {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        try (BatchRenderService service = new BatchRenderService(3, job -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            return new RenderResult(job, 0, null);
+        })) {
+            Collector collector = new Collector(Long.MAX_VALUE);
+            service.publish(jobs(60)).subscribe(collector);
+            assertTrue(collector.done.await(10, TimeUnit.SECONDS));
+            assertEquals(60, collector.results.size());
+
+            List<CompletableFuture<RenderResult>> submitted = new ArrayList<>();
+            for (RenderJob job : (Iterable<RenderJob>) jobs(60)::iterator) submitted.add(service.submit(job));
+            for (CompletableFuture<RenderResult> future : submitted) future.join();
+        }
+        assertEquals(3, peak.get());
+    }
+
+    @Test
+    public void slowSubscriberHoldsRenderingBack() throws Exception
+    {
+        AtomicInteger rendered = new AtomicInteger();
+        try (BatchRenderService service = new BatchRenderService(2, job -> {
+            rendered.incrementAndGet();
+            return new RenderResult(job, 0, null);
+        })) {
+            Collector collector = new Collector(1);
+            service.publish(jobs(100)).subscribe(collector);
+
+            Thread.sleep(300);
+            // One delivered, at most two buffered and two waiting to hand theirs over
+            assertTrue(String.valueOf(rendered.get()), rendered.get() <= 5);
+            assertEquals(1, collector.results.size());
+
+            collector.subscription.request(Long.MAX_VALUE);
+            assertTrue(collector.done.await(10, TimeUnit.SECONDS));
+            assertEquals(100, collector.results.size());
+            assertEquals(100, rendered.get());
+        }
+    }
+
+    private static Stream<RenderJob> jobs(int count)
+    {
+        return IntStream.range(0, count).mapToObj(i -> new RenderJob(new AppProfile(), new File("perfil.json"),
+            Collections.emptyMap(), null, Path.of(i + ".html"), i));
+    }
+
+    private static class Collector implements Flow.Subscriber<RenderResult>
+    {
+        final List<RenderResult> results = Collections.synchronizedList(new ArrayList<>());
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        private final long initialDemand;
+        volatile Flow.Subscription subscription;
+
+        Collector(long initialDemand)
+        {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+            subscription.request(initialDemand);
+        }
+
+        @Override
+        public void onNext(RenderResult item)
+        {
+            results.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable)
+        {
+            error.set(throwable);
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightEventsTest
+{
+    @Test
+    public void renderEventCarriesTemplateSizeAndRows() throws Exception
+    {
+        CompiledTemplate template = CompiledTemplate.compile(
+            "<p>{{NOMBRE}}</p>{{#ITEMS}}<i>{{DESC}}</i>{{/ITEMS}}", "plantillas/nota.html");
+        List<Map<String, String>> items = Arrays.asList(
+            Collections.singletonMap("DESC", "a"), Collections.singletonMap("DESC", "b"));
+
+        Path file = Files.createTempFile("eventos-", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.bunshock.TemplateRender");
+            recording.start();
+            String html = new ReportGenerator().render(template, Collections.singletonMap("NOMBRE", "Ana"), items);
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(1, events.size());
+            RecordedEvent event = events.get(0);
+            assertEquals("plantillas/nota.html", event.getString("templatePath"));
+            assertEquals(html.length(), event.getLong("chars"));
+            assertEquals(2, event.getInt("rows"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * Checks the streaming head injection against the old String replacement.
+ */
+public class HeadInjectingWriterTest
+{
+    private static final String TAGS = "<base href=\"file:/plantillas/\">";
+
+    @Test
+    public void insertsAfterEveryHead() throws IOException
+    {
+        String html = "<html><head><title>x</title></head><body><hea<head>d <<head></body></html>";
+        assertEquals(html.replace("<head>", "<head>\n    " + TAGS), inject(html, 3));
+    }
+
+    @Test
+    public void replacesEverythingUpToHtmlWithoutHead() throws IOException
+    {
+        String html = "<!DOCTYPE html>\n<<html><body>{{X}}</body></html>";
+        String expected = "<html><head>" + TAGS + "</head>" + html.substring(html.indexOf("<html>") + 6);
+        assertEquals(expected, inject(html, 5));
+    }
+
+    // Writes in small chunks so matches span write calls
+    private String inject(String html, int chunk) throws IOException
+    {
+        StringWriter target = new StringWriter();
+        try (HeadInjectingWriter writer = new HeadInjectingWriter(target, CompiledTemplate.compile(html), TAGS)) {
+            for (int i = 0; i < html.length(); i += chunk) {
+                writer.write(html, i, Math.min(chunk, html.length() - i));
+            }
+        }
+        return target.toString();
+    }
+}
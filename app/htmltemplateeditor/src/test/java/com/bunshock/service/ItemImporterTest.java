@@ -0,0 +1,69 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.bunshock.model.FieldConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ItemImporterTest
+{
+    private static final List<FieldConfig> COLUMNS = Arrays.asList(
+        new FieldConfig("BRAND", "Marca", "TEXT"),
+        new FieldConfig("MODEL", "Modelo", "TEXT"),
+        new FieldConfig("QTY", "Cantidad", "TEXT"));
+
+    private static OptionsIndex options() throws IOException
+    {
+        return OptionsIndex.build(new ObjectMapper().readTree("{"
+            + "\"BRAND\": {\"options\": [\"Acme\", \"Beta\"]},"
+            + "\"MODEL\": {\"dependsOn\": \"BRAND\", \"options\": [{\"value\": \"X1\", \"parents\": [\"Acme\"]}]}"
+            + "}"));
+    }
+
+    @Test
+    public void pastedRowsAreTakenInColumnOrder() throws IOException
+    {
+        ItemImporter.Result result = ItemImporter.read(
+            new StringReader("Acme\tX1\t2\r\n\r\nBeta\t\t 5 \n"), COLUMNS, options());
+
+        assertEquals(2, result.getRows().size());
+        assertArrayEquals(new String[] {"Acme", "X1", "2"}, result.getRows().get(0));
+        assertArrayEquals(new String[] {"Beta", "", "5"}, result.getRows().get(1));
+        assertEquals(0, result.getProblemCount());
+    }
+
+    @Test
+    public void headerMapsColumnsByLabelOrTag() throws IOException
+    {
+        String csv = "\uFEFFcantidad;Notas;brand\n"
+            + "\"1,5\";\"dice \"\"frágil\"\"\";Acme\n"
+            + "3;;Zeta\n";
+        ItemImporter.Result result = ItemImporter.read(new StringReader(csv), COLUMNS, options());
+
+        assertArrayEquals(new String[] {"Acme", "", "1,5"}, result.getRows().get(0));
+        assertArrayEquals(new String[] {"Zeta", "", "3"}, result.getRows().get(1));
+        assertEquals(1, result.getProblemCount());
+        assertTrue(result.getProblems().get(0), result.getProblems().get(0).startsWith("Fila 3: \"Zeta\""));
+    }
+
+    @Test
+    public void dependentValuesAreCheckedAgainstTheirParent() throws IOException
+    {
+        StringBuilder tsv = new StringBuilder();
+        for (int i = 0; i < 1000; i++) tsv.append(i % 2 == 0 ? "Acme\tX1\t1\n" : "Beta\tX1\t1\n");
+        ItemImporter.Result result = ItemImporter.read(new StringReader(tsv.toString()), COLUMNS, options());
+
+        assertEquals(1000, result.getRows().size());
+        assertEquals(500, result.getProblemCount()); // X1 is not a Beta model
+        assertEquals(20, result.getProblems().size());
+    }
+}
@@ -0,0 +1,76 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class MetricsTest
+{
+    @Test
+    public void histogramPercentilesStayWithinTheirBucket()
+    {
+        Metrics metrics = new Metrics(null);
+        Metrics.Timer timer = metrics.timer("print.layout");
+        for (int i = 0; i < 95; i++) timer.record(3_000_000);   // 3 ms
+        for (int i = 0; i < 5; i++) timer.record(1_200_000_000); // 1.2 s: the slow prints
+
+        assertEquals(100, timer.getCount());
+        assertEquals(62.85, timer.getMean(), 0.01);
+        assertEquals(1200.0, timer.getMax(), 0.01);
+        assertEquals(5.0, timer.getP50(), 0.01);  // Bucket (2, 5] ms
+        assertEquals(5.0, timer.getP95(), 0.01);
+        assertEquals(1200.0, timer.getP99(), 0.01); // Bucket (1, 2] s, capped at the max
+        assertTrue(metrics.timer("print.layout") == timer);
+    }
+
+    @Test
+    public void reportAppendsChangedMetricsAndRolls() throws Exception
+    {
+        Path folder = Files.createTempDirectory("metricas-");
+        Path file = folder.resolve("metrics.csv");
+        try {
+            Metrics metrics = new Metrics(null);
+            metrics.counter("options.sync.errors").increment();
+            metrics.counter("print.cached"); // Never incremented: not written
+            metrics.writeReport(file);
+            metrics.writeReport(file); // Nothing changed
+
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(1), lines.get(1).contains(",options.sync.errors,contador,1,"));
+
+            Files.write(file, new byte[(int) Metrics.REPORT_MAX_BYTES]);
+            metrics.counter("options.sync.errors").increment();
+            metrics.writeReport(file);
+            assertTrue(Files.exists(Metrics.rolled(file, 1)));
+            assertEquals(2, Files.readAllLines(file).size());
+        } finally {
+            for (int i = Metrics.REPORT_KEEP; i >= 1; i--) Files.deleteIfExists(Metrics.rolled(file, i));
+            Files.deleteIfExists(file);
+            Files.delete(folder);
+        }
+    }
+
+    @Test
+    public void metricsArePublishedOverJmx() throws Exception
+    {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        Metrics metrics = new Metrics(server);
+        metrics.timer("report.render").record(4_000_000);
+
+        ObjectName name = new ObjectName("com.bunshock:type=Metrics,name=" + ObjectName.quote("report.render"));
+        assertEquals(1L, server.getAttribute(name, "Count"));
+        assertEquals(4.0, (Double) server.getAttribute(name, "Mean"), 0.01);
+        assertFalse(server.queryNames(new ObjectName("com.bunshock:type=Metrics,*"), null).isEmpty());
+    }
+}
@@ -0,0 +1,77 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class OptionListTest
+{
+    @Test
+    public void prefixMatchesComeFirstIgnoringCase()
+    {
+        OptionList list = OptionList.sorted(Arrays.asList("Tornillo", "destornillador", "TORNO", "Arandela", "tuerca"));
+
+        assertEquals(Arrays.asList("Tornillo", "TORNO", "destornillador"), list.search("tor", 10));
+        assertEquals(Arrays.asList("destornillador"), list.search("  ESTOR ", 10));
+        assertEquals(Arrays.asList("Tornillo", "TORNO"), list.search("tor", 2));
+        assertEquals(Arrays.asList("Arandela", "TORNO"), list.search("", 2));
+        assertTrue(list.search("xyz", 10).isEmpty());
+    }
+
+    @Test
+    public void insertKeepsTheListSortedAndSearchable()
+    {
+        OptionList list = OptionList.sorted(Arrays.asList("b", "d"));
+        OptionList grown = OptionList.insert(OptionList.insert(list, "c"), "a");
+
+        assertEquals(Arrays.asList("a", "b", "c", "d"), grown);
+        assertEquals(Arrays.asList("b", "d"), list);
+        assertEquals(Arrays.asList("c"), grown.search("C", 10));
+    }
+
+    @Test
+    public void matchesTheFullScanOnALargeField()
+    {
+        Random random = new Random(7);
+        String letters = "abcdeñá ";
+        Set<String> values = new LinkedHashSet<>();
+        while (values.size() < 50_000) {
+            StringBuilder sb = new StringBuilder();
+            int length = 3 + random.nextInt(12);
+            for (int c = 0; c < length; c++) sb.append(letters.charAt(random.nextInt(letters.length())));
+            values.add(sb.toString());
+        }
+        OptionList list = OptionList.sorted(new ArrayList<>(values));
+
+        for (String query : Arrays.asList("a", "bc", "ñáb", "cab d", "aaaa", "eeeeeeeeeeeee")) {
+            assertEquals(query, scan(list, query, 100), list.search(query, 100));
+        }
+    }
+
+    // Checks every value: prefix matches in folded order, then the rest in list order
+    private static List<String> scan(List<String> values, String query, int limit)
+    {
+        String q = OptionsIndex.fold(query);
+        List<String> prefix = new ArrayList<>();
+        List<String> infix = new ArrayList<>();
+        for (String value : values) {
+            String folded = OptionsIndex.fold(value);
+            if (folded.startsWith(q)) {
+                prefix.add(value);
+            } else if (folded.contains(q)) {
+                infix.add(value);
+            }
+        }
+        prefix.sort((a, b) -> OptionsIndex.fold(a).compareTo(OptionsIndex.fold(b)));
+        prefix.addAll(infix);
+        return prefix.subList(0, Math.min(limit, prefix.size()));
+    }
+}
@@ -0,0 +1,86 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class OptionsIndexTest
+{
+    private static final String JSON = "{"
+        + "\"BRAND\": {\"options\": [\"Zeta\", \"acme\", \"Beta\"]},"
+        + "\"MODEL\": {\"dependsOn\": \"BRAND\", \"options\": ["
+        + "  {\"value\": \"X2\", \"parents\": [\"Acme\", \"ACME\"]},"
+        + "  {\"value\": \"a1\", \"parents\": [\"beta\"]},"
+        + "  {\"value\": \"X1\", \"parents\": [\"acme\"]},"
+        + "  \"Generic\""
+        + "]}}";
+
+    @Test
+    public void lookupsMatchTheFullScan() throws IOException
+    {
+        JsonNode root = new ObjectMapper().readTree(JSON);
+        OptionsIndex index = OptionsIndex.build(root);
+
+        for (String field : Arrays.asList("BRAND", "MODEL", "COLOR")) {
+            for (String parent : Arrays.asList(null, "", "acme", "ACME", "Beta", "none")) {
+                assertEquals(field + "/" + parent, scan(root, field, parent), index.get(field, parent));
+            }
+        }
+        assertTrue(index.contains("BRAND", "ACME"));
+        assertEquals("BRAND", index.dependency("MODEL"));
+        assertNull(index.dependency("BRAND"));
+        // Unchanged lists are the same instance, so derived data can be keyed on them
+        assertSame(index.get("MODEL", "acme"), index.get("MODEL", "Acme"));
+        assertFalse(index.contains("BRAND", "Gamma"));
+    }
+
+    @Test
+    public void addedOptionsKeepListsSorted() throws IOException
+    {
+        OptionsIndex index = OptionsIndex.build(new ObjectMapper().readTree(JSON));
+
+        index.add("MODEL", "X0", "acme", true);
+        index.add("MODEL", "Y9", "Nueva", true);
+        index.add("BRAND", "Delta", null, false);
+        index.add("COLOR", "Rojo", null, false);
+
+        assertEquals(Arrays.asList("Generic", "X0", "X1", "X2"), index.get("MODEL", "Acme"));
+        assertEquals(Arrays.asList("Generic", "Y9"), index.get("MODEL", "nueva"));
+        assertEquals(Arrays.asList("Generic", "a1"), index.get("MODEL", "beta"));
+        assertEquals(Arrays.asList("Beta", "Delta", "Zeta", "acme"), index.get("BRAND", null));
+        assertEquals(Collections.singletonList("Rojo"), index.get("COLOR", "x"));
+        assertTrue(index.contains("MODEL", "y9"));
+    }
+
+    // The per-call scan OptionsManager.getOptions used before the index
+    private static List<String> scan(JsonNode root, String fieldName, String parentValue)
+    {
+        List<String> results = new ArrayList<>();
+        for (JsonNode opt : root.path(fieldName).path("options")) {
+            if (opt.isTextual()) {
+                results.add(opt.asText());
+            } else if (opt.isObject()) {
+                boolean match = parentValue == null || parentValue.isEmpty();
+                for (JsonNode p : opt.path("parents")) {
+                    match |= p.asText().equalsIgnoreCase(parentValue);
+                }
+                if (match) results.add(opt.path("value").asText());
+            }
+        }
+        Collections.sort(results);
+        return results;
+    }
+}
@@ -0,0 +1,95 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class OptionsJournalTest
+{
+    @Test
+    public void tailsSkipIncompleteLines() throws IOException
+    {
+        Path journal = Files.createTempDirectory("journal").resolve("options.json.PC1.journal");
+        OptionsJournal.append(journal, Arrays.asList(
+            new OptionsJournal.Entry("BRAND", "Acme", null),
+            new OptionsJournal.Entry("MODEL", "Xé", "Acme")));
+        Files.write(journal, "{\"field\":\"BRA".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        OptionsJournal.Tail tail = OptionsJournal.read(journal, 0);
+        assertEquals(2, tail.entries.size());
+        assertNull(tail.entries.get(0).parent);
+        assertEquals("Xé", tail.entries.get(1).value);
+        assertEquals("Acme", tail.entries.get(1).parent);
+
+        // Nothing new until the line is finished
+        assertEquals(0, OptionsJournal.read(journal, tail.offset).entries.size());
+        Files.write(journal, "ND\",\"value\":\"Beta\"}\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertEquals("Beta", OptionsJournal.read(journal, tail.offset).entries.get(0).value);
+    }
+
+    @Test
+    public void syncReadsOnlyNewJournalBytes() throws IOException
+    {
+        Path dir = Files.createTempDirectory("options");
+        Path snapshot = dir.resolve("options.json");
+        Files.writeString(snapshot, "{\"BRAND\": {\"options\": [\"Acme\"]}}");
+        Path pc1 = OptionsJournal.journalFile(snapshot, "PC1");
+        Path pc2 = OptionsJournal.journalFile(snapshot, "PC2");
+        OptionsJournal.append(pc1, Collections.singletonList(new OptionsJournal.Entry("BRAND", "Beta", null)));
+
+        OptionsSync sync = new OptionsSync(new ObjectMapper());
+        OptionsSync.Changes first = sync.poll(snapshot);
+        assertEquals("Acme", first.snapshot.path("BRAND").path("options").get(0).asText());
+        assertEquals(1, first.additions.size());
+        assertNull(sync.poll(snapshot));
+
+        OptionsJournal.append(pc2, Collections.singletonList(new OptionsJournal.Entry("BRAND", "Gamma", null)));
+        OptionsSync.Changes second = sync.poll(snapshot);
+        assertNull(second.snapshot);
+        assertEquals("Gamma", second.additions.get(0).value);
+
+        // PC1 compacted: journal emptied, so everything is read again
+        OptionsJournal.truncate(pc1);
+        OptionsSync.Changes third = sync.poll(snapshot);
+        assertEquals("Acme", third.snapshot.path("BRAND").path("options").get(0).asText());
+        assertEquals(1, third.additions.size());
+    }
+
+    @Test
+    public void lockTakenOverAfterGoingStaleIsNoLongerHeld() throws IOException
+    {
+        Path snapshot = Files.createTempDirectory("options").resolve("options.json");
+        OptionsJournal.Lock first = OptionsJournal.tryLock(snapshot);
+        assertNotNull(first);
+        assertTrue(first.isHeld());
+        assertNull(OptionsJournal.tryLock(snapshot));
+
+        // The holder stopped refreshing it: another client removes it and takes its own
+        Path file = snapshot.resolveSibling("options.json.lock");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 10 * 60 * 1000));
+        assertNull(OptionsJournal.tryLock(snapshot));
+        OptionsJournal.Lock second = OptionsJournal.tryLock(snapshot);
+        assertNotNull(second);
+
+        assertFalse(first.isHeld());
+        first.close();
+        assertTrue(Files.exists(file)); // Closing a lost lock leaves the new holder's file alone
+        second.close();
+        assertFalse(Files.exists(file));
+    }
+}
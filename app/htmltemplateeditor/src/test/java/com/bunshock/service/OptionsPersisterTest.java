@@ -0,0 +1,90 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class OptionsPersisterTest
+{
+    @Test
+    public void burstOfChangesIsWrittenOnce() throws IOException
+    {
+        Path dir = Files.createTempDirectory("options");
+        Path backup = dir.resolve("backup.json");
+
+        AtomicInteger snapshots = new AtomicInteger();
+        AtomicInteger pushes = new AtomicInteger();
+        List<Integer> pending = new ArrayList<>();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        OptionsPersister persister = new OptionsPersister(executor, () -> {
+            snapshots.incrementAndGet();
+            return "{}".getBytes(StandardCharsets.UTF_8);
+        }, backup, () -> {
+            // Offline on the first attempt
+            if (pushes.incrementAndGet() == 1) throw new IOException("offline");
+        }, count -> {
+            synchronized (pending) { pending.add(count); }
+        });
+
+        persister.changed();
+        persister.changed();
+        persister.changed();
+        persister.flush();
+        assertEquals(Integer.valueOf(3), pending.get(pending.size() - 1));
+
+        persister.flush();
+        executor.shutdownNow();
+
+        assertEquals(1, snapshots.get()); // The retry does not rewrite the backup
+        assertEquals(2, pushes.get());
+        assertEquals("{}", Files.readString(backup));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count()); // No temp file left behind
+        }
+        assertEquals(Integer.valueOf(0), pending.get(pending.size() - 1));
+    }
+
+    @Test
+    public void concurrentWritersUseTheirOwnTempFiles() throws Exception
+    {
+        Path dir = Files.createTempDirectory("options");
+        Path target = dir.resolve("options.json");
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                byte[] content = ("{\"writer\": " + w + ", \"pad\": \"" + "x".repeat(100_000) + "\"}").getBytes(StandardCharsets.UTF_8);
+                done.add(writers.submit(() -> {
+                    for (int i = 0; i < 20; i++) OptionsPersister.writeAtomically(target, content);
+                    return null;
+                }));
+            }
+            for (Future<?> f : done) f.get();
+
+            // Whole content of one writer, never a mix
+            String result = Files.readString(target);
+            assertTrue(result.matches("\\{\"writer\": \\d, \"pad\": \"x{100000}\"}"));
+            try (Stream<Path> files = Files.list(dir)) {
+                assertEquals(1, files.count());
+            }
+        } finally {
+            writers.shutdownNow();
+            Files.deleteIfExists(target);
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class OptionsSyncTest
+{
+    @Test
+    public void onlyChangedContentIsReturned() throws IOException
+    {
+        Path file = Files.createTempFile("options", ".json");
+        Files.writeString(file, "{\"BRAND\": {\"options\": [\"Acme\"]}}\n");
+        OptionsSync sync = new OptionsSync(new ObjectMapper());
+
+        JsonNode first = sync.readIfChanged(file);
+        assertNotNull(first);
+        assertEquals("Acme", first.path("BRAND").path("options").get(0).asText());
+
+        // Untouched, then touched with the same content
+        assertNull(sync.readIfChanged(file));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+        assertNull(sync.readIfChanged(file));
+
+        Files.writeString(file, "{\"BRAND\": {\"options\": [\"Beta\"]}}\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10000));
+        assertEquals("Beta", sync.readIfChanged(file).path("BRAND").path("options").get(0).asText());
+    }
+}
@@ -0,0 +1,32 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class PdfExporterTest
+{
+    @Test
+    public void plainHtmlTemplateBecomesPdf() throws IOException
+    {
+        // Not XHTML on purpose: unclosed <p> and <br>
+        CompiledTemplate template = CompiledTemplate.compile(
+            "<html><body><p>Nota de {{NOMBRE}}<br><table>{{#ITEMS}}<tr><td>{{BRAND}}</td></tr>{{/ITEMS}}</table></body></html>");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new PdfExporter().export(template, Collections.singletonMap("NOMBRE", "Juan"),
+            Arrays.<Map<String, String>>asList(Collections.singletonMap("BRAND", "Acme")),
+            new File("."), out);
+
+        String header = new String(out.toByteArray(), 0, 5, StandardCharsets.ISO_8859_1);
+        assertTrue(header, header.equals("%PDF-"));
+    }
+}
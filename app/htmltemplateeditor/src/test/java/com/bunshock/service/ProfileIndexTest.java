@@ -0,0 +1,76 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Test;
+
+import com.bunshock.model.ProfileSummary;
+
+public class ProfileIndexTest
+{
+    private static final String PROFILE = "{"
+        + "\"simpleFields\": [{\"tag\": \"NOMBRE\", \"label\": \"Nombre\", \"type\": \"TEXT\"}],"
+        + "\"profileName\": \"Nota de envío\","
+        + "\"tables\": [{\"tableName\": \"ITEMS\", \"columns\": [{\"x\": [1, {\"y\": null}]}]}],"
+        + "\"templatePath\": \"../plantillas/nota.html\""
+        + "}";
+
+    @Test
+    public void summarySkipsFieldsAndTables() throws Exception
+    {
+        Path folder = Files.createTempDirectory("perfiles-");
+        Path file = folder.resolve("nota.json");
+        try {
+            Files.writeString(file, PROFILE);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000));
+
+            ProfileSummary summary = ProfileService.loadSummary(file.toFile());
+            assertEquals("Nota de envío", summary.getProfileName());
+            assertEquals("../plantillas/nota.html", summary.getTemplatePath());
+            assertEquals(file.toFile().getAbsolutePath(), summary.getPath());
+            assertTrue(ProfileIndex.isCurrent(summary, Files.readAttributes(file, BasicFileAttributes.class)));
+
+            Files.setLastModifiedTime(file, FileTime.fromMillis(2_000_000));
+            assertFalse(ProfileIndex.isCurrent(summary, Files.readAttributes(file, BasicFileAttributes.class)));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(folder);
+        }
+    }
+
+    @Test
+    public void indexSurvivesARestart() throws Exception
+    {
+        Path folder = Files.createTempDirectory("indice-");
+        Path indexFile = folder.resolve("profile_index.json");
+        File profile = folder.resolve("a.json").toFile();
+        try {
+            ProfileIndex index = ProfileIndex.load(indexFile);
+            assertNull(index.get(profile));
+            index.put(new ProfileSummary(ProfileIndex.key(profile), "A", "a.html", 5, 10));
+            index.save();
+
+            ProfileSummary restored = ProfileIndex.load(indexFile).get(profile);
+            assertEquals("A", restored.getProfileName());
+            assertEquals("a.html", restored.getTemplatePath());
+            assertEquals(5, restored.getLastModified());
+            assertEquals(10, restored.getSize());
+
+            // Damaged index: start over instead of failing
+            Files.writeString(indexFile, "[{\"path\": ");
+            assertNull(ProfileIndex.load(indexFile).get(profile));
+        } finally {
+            Files.deleteIfExists(indexFile);
+            Files.delete(folder);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class RenderedDocumentCacheTest
+{
+    private static final CompiledTemplate TEMPLATE = CompiledTemplate.compile(
+            "<html><head></head><body>{{NOMBRE}} {{#ITEMS}}<p>{{DESC}}</p>{{/ITEMS}}</body></html>");
+
+    @Test
+    public void keyIgnoresMapOrder()
+    {
+        Map<String, String> a = new LinkedHashMap<>();
+        a.put("NOMBRE", "Ana");
+        a.put("DNI", "1");
+        Map<String, String> b = new LinkedHashMap<>();
+        b.put("DNI", "1");
+        b.put("NOMBRE", "Ana");
+
+        assertEquals(RenderedDocumentCache.key(TEMPLATE, "", a, null), RenderedDocumentCache.key(TEMPLATE, "", b, null));
+    }
+
+    @Test
+    public void keyChangesWithTemplateDataAndItems()
+    {
+        Map<String, String> data = Map.of("NOMBRE", "Ana");
+        List<Map<String, String>> items = Arrays.asList(Map.of("DESC", "uno"));
+        String base = RenderedDocumentCache.key(TEMPLATE, "", data, items);
+
+        assertNotEquals(base, RenderedDocumentCache.key(CompiledTemplate.compile(TEMPLATE.getSource() + " "), "", data, items));
+        assertNotEquals(base, RenderedDocumentCache.key(TEMPLATE, "<base>", data, items));
+        assertNotEquals(base, RenderedDocumentCache.key(TEMPLATE, "", Map.of("NOMBRE", "Ana "), items));
+        assertNotEquals(base, RenderedDocumentCache.key(TEMPLATE, "", data, Arrays.asList(Map.of("DESC", "dos"))));
+        assertNotEquals(base, RenderedDocumentCache.key(TEMPLATE, "", data, null));
+        // Value boundaries are part of the key
+        assertNotEquals(RenderedDocumentCache.key(TEMPLATE, "", Map.of("A", "bc"), null),
+                RenderedDocumentCache.key(TEMPLATE, "", Map.of("Ab", "c"), null));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedBySize()
+    {
+        RenderedDocumentCache cache = new RenderedDocumentCache(10);
+        cache.put("a", new byte[4]);
+        cache.put("b", new byte[4]);
+        cache.get("a"); // b is now the eldest
+        cache.put("c", new byte[4]);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(8, cache.getSizeBytes());
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        cache.put("huge", new byte[11]);
+        assertNull(cache.get("huge"));
+        assertEquals(2, cache.getEntryCount());
+    }
+
+    @Test
+    public void cachedBytesMatchTheRenderedFile() throws Exception
+    {
+        Map<String, String> data = new HashMap<>();
+        data.put("NOMBRE", "Ana");
+        List<Map<String, String>> items = Arrays.asList(Map.of("DESC", "uno"));
+        ReportGenerator generator = new ReportGenerator();
+
+        Path file = Files.createTempFile("cache-", ".html");
+        try {
+            generator.renderToFile(TEMPLATE, data, items, file, "<meta charset=\"UTF-8\">");
+            byte[] bytes = generator.renderToBytes(TEMPLATE, data, items, "<meta charset=\"UTF-8\">");
+            assertArrayEquals(Files.readAllBytes(file), bytes);
+            assertTrue(new String(bytes, StandardCharsets.UTF_8).contains("<meta charset=\"UTF-8\"></head><body>Ana <p>uno</p>"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Checks the compiled engine against the original regex implementation.
+ */
+public class ReportGeneratorTest
+{
+    private static final String TEMPLATE =
+        "<html><head><title>{{TEMPLATE_NAME}}</title></head>\n" +
+        "<body>\n" +
+        "  <h1>Nota para {{nombre}} ({{DNI}})</h1>\n" +
+        "  <p>Fecha: {{FECHA}} - {{{NOMBRE}}}</p>\n" +
+        "  <ul>\n" +
+        "  {{#ITEMS}}\n" +
+        "    <li class=\"item\">\n" +
+        "      <div class=\"brand\"><b>Marca:</b> {{BRAND}}</div>\n" +
+        "      <div>Modelo: <span>{{MODEL}}</span></div>\n" +
+        "      <p>Serie: {{SERIAL}}</p>\n" +
+        "      {{NOTE}}\n" +
+        "      <span>{{UNKNOWN}}</span>\n" +
+        "    </li>\n" +
+        "  {{/ITEMS}}\n" +
+        "  </ul>\n" +
+        "  {{#ITEMS}}second block {{BRAND}}{{/ITEMS}}\n" +
+        "  <footer>{{nombre}} {{MISSING}} }} {{ {{</footer>\n" +
+        "</body></html>\n";
+
+    private final ReportGenerator generator = new ReportGenerator();
+
+    @Test
+    public void simpleFieldsMatchRegexImplementation()
+    {
+        Map<String, String> data = simpleData();
+        assertEquals(legacySimpleFields(TEMPLATE, data), generator.processSimpleFields(TEMPLATE, data));
+    }
+
+    @Test
+    public void repeatedItemsMatchRegexImplementation()
+    {
+        List<Map<String, String>> items = items();
+        assertEquals(legacyRepeatedItems(TEMPLATE, items), generator.processRepeatedItems(TEMPLATE, items));
+    }
+
+    @Test
+    public void singlePassRenderMatchesBothSteps()
+    {
+        Map<String, String> data = simpleData();
+        List<Map<String, String>> items = items();
+        String expected = legacyRepeatedItems(legacySimpleFields(TEMPLATE, data), items);
+
+        assertEquals(expected, generator.render(CompiledTemplate.compile(TEMPLATE), data, items));
+    }
+
+    @Test
+    public void nullItemsLeaveBlockUntouched()
+    {
+        Map<String, String> data = simpleData();
+        assertEquals(legacySimpleFields(TEMPLATE, data),
+            generator.render(CompiledTemplate.compile(TEMPLATE), data, null));
+    }
+
+    @Test
+    public void streamingMatchesStringRender() throws IOException
+    {
+        CompiledTemplate template = CompiledTemplate.compile(TEMPLATE);
+        String expected = generator.render(template, simpleData(), items());
+
+        StringWriter writer = new StringWriter();
+        generator.render(template, simpleData(), items(), writer);
+        assertEquals(expected, writer.toString());
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        generator.render(template, simpleData(), items(), stream);
+        assertEquals(expected, stream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void wellFormedBodyUsesWrapperRanges()
+    {
+        int start = TEMPLATE.indexOf("{{#ITEMS}}") + "{{#ITEMS}}".length();
+        String body = TEMPLATE.substring(start, TEMPLATE.indexOf("{{/ITEMS}}"));
+        assertTrue(ItemRowTemplate.analyze(body).isRegular());
+    }
+
+    @Test
+    public void tangledWrappersMatchRegexImplementation()
+    {
+        String html = "<ul>{{#ITEMS}}\n" +
+            "<div class=row><div>{{A}}</div>{{B}}</div>\n" +
+            "<div> <p>{{C}}</div></p> {{D}} </div>\r\n  \r\n" +
+            "<pre>{{A}}</p><LI>{{b}}</li>\t\n" +
+            "{{#ITEMS}}{{E}}\n\n   \n{{/ITEMS}}";
+        List<Map<String, String>> items = new ArrayList<>();
+        String[] values = { "", "x", "  ", null };
+        for (String a : values) {
+            for (String b : values) {
+                for (String c : values) {
+                    Map<String, String> row = new LinkedHashMap<>();
+                    row.put("A", a);
+                    row.put("B", b);
+                    row.put("C", c);
+                    row.put("D", "");
+                    row.put("E", "<b>{{A}}</b>");
+                    items.add(row);
+                }
+            }
+        }
+        assertEquals(legacyRepeatedItems(html, items), generator.processRepeatedItems(html, items));
+    }
+
+    @Test
+    public void fieldsInsideTheBlockAreFixedSlots()
+    {
+        String html = "<ul>{{#ITEMS}}\n" +
+            "<li><div>{{FECHA}}</div><div>{{BRAND}}</div> {{nombre}} <span>{{DNI}}</span>\n  {{MODEL}}</li>\n" +
+            "{{/ITEMS}}</ul>";
+        Map<String, String> data = simpleData();
+        data.put("FECHA", "01/02/2024");
+        List<Map<String, String>> items = items();
+        items.get(0).put("FECHA", "ignored: the document's value wins");
+
+        CompiledTemplate template = CompiledTemplate.compile(html);
+        String expected = legacyRepeatedItems(legacySimpleFields(html, data), items);
+        assertEquals(expected, generator.render(template, data, items));
+        assertTrue(template.getRowTemplate((CompiledTemplate.Section) template.getNodes().get(1)).isRegular());
+
+        // Same analysis, other document
+        data.put("FECHA", "");
+        assertEquals(legacyRepeatedItems(legacySimpleFields(html, data), items), generator.render(template, data, items));
+    }
+
+    @Test
+    public void valuesWithMarkupMatchRegexImplementation()
+    {
+        String html = "<ul>{{#ITEMS}}\n<div>{{BRAND}}</div><p>{{MODEL}}</p> <span>{{FECHA}}</span>\n{{/ITEMS}}</ul>";
+        List<Map<String, String>> items = new ArrayList<>();
+        items.add(rowOf("BRAND", "<b>{{MODEL}}</b> {x}", "MODEL", ""));
+        items.add(rowOf("MODEL", "", "BRAND", "</div><div>{{MODEL}}"));
+        items.add(rowOf("BRAND", "Acme", "MODEL", "X-100"));
+        Map<String, String> data = new LinkedHashMap<>();
+        CompiledTemplate template = CompiledTemplate.compile(html);
+        assertTrue(template.getRowTemplate((CompiledTemplate.Section) template.getNodes().get(1)).isRegular());
+
+        // Markup in an item value
+        data.put("FECHA", "01/02/2024");
+        assertEquals(legacyRepeatedItems(legacySimpleFields(html, data), items), generator.render(template, data, items));
+
+        // Markup in a simple field used inside the block
+        data.put("FECHA", "</span><p>{{BRAND}}");
+        assertEquals(legacyRepeatedItems(legacySimpleFields(html, data), items), generator.render(template, data, items));
+    }
+
+    @Test
+    public void regularBodiesMatchRegexForEveryKeyPair()
+    {
+        int start = TEMPLATE.indexOf("{{#ITEMS}}") + "{{#ITEMS}}".length();
+        String[] bodies = {
+            TEMPLATE.substring(start, TEMPLATE.indexOf("{{/ITEMS}}")),
+            "<div class=row><div>{{A}}</div> <div>{{B}}</div></div>\n<p>{{C}}</p>",
+            "<tr><td><span>{{A}}</span></td><td><div><b>{{B}}</b></div> {{C}}</td></tr>\n\n"
+        };
+        for (String body : bodies) {
+            ItemRowTemplate rows = ItemRowTemplate.analyze(body);
+            assertTrue(body, rows.isRegular());
+            List<String> keys = placeholderNames(body);
+            for (String a : keys) {
+                assertSameAsRegex(body, rows, rowOf(a, "", null, null));
+                for (String b : keys) {
+                    if (a.equals(b)) continue;
+                    assertSameAsRegex(body, rows, rowOf(a, "", b, ""));
+                    assertSameAsRegex(body, rows, rowOf(a, "", b, "[" + b + "]"));
+                    assertSameAsRegex(body, rows, rowOf(a, "[" + a + "]", b, ""));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void wrapperClosingAnEarlierTagIsLeftToRegex()
+    {
+        // Removing {{A}}'s span drops the </div> that kept {{B}} from matching the outer div
+        String body = "<div> <span></div>{{A}}</span> {{B}}</div>";
+        assertFalse(ItemRowTemplate.analyze(body).isRegular());
+
+        String html = "{{#ITEMS}}" + body + "{{/ITEMS}}";
+        List<Map<String, String>> items = List.of(rowOf("A", "", "B", ""), rowOf("B", "", "A", "x"));
+        assertEquals(legacyRepeatedItems(html, items), generator.processRepeatedItems(html, items));
+    }
+
+    @Test
+    public void randomBodiesDeclaredRegularMatchRegex()
+    {
+        String[] parts = { "<div>", "</div>", "<p>", "</p>", "<span class=x>", "</span>", "<li>", "</li>",
+            "<pre>", "<b>", "</b>", "{{A}}", "{{B}}", "{{c}}", " ", "\n", "x" };
+        String[] values = { null, "", " ", "v" };
+        String[] keys = { "A", "B", "C" };
+        Random random = new Random(7);
+        int regular = 0;
+        for (int run = 0; run < 3000; run++) {
+            StringBuilder body = new StringBuilder();
+            int length = 2 + random.nextInt(14);
+            for (int i = 0; i < length; i++) body.append(parts[random.nextInt(parts.length)]);
+            ItemRowTemplate rows = ItemRowTemplate.analyze(body.toString());
+            if (!rows.isRegular()) continue;
+            regular++;
+
+            for (int r = 0; r < 8; r++) {
+                Map<String, String> row = new LinkedHashMap<>();
+                for (int k = 0; k < keys.length; k++) {
+                    String key = keys[(k + r) % keys.length]; // Vary the order the regex path sees
+                    String value = values[random.nextInt(values.length)];
+                    if (value != null || random.nextBoolean()) row.put(key, value);
+                }
+                assertSameAsRegex(body.toString(), rows, row);
+            }
+        }
+        assertTrue("Too few regular bodies: " + regular, regular > 1000);
+    }
+
+    @Test
+    public void blankLineCleanupMatchesRegex()
+    {
+        Random random = new Random(42);
+        char[] alphabet = { ' ', '\t', '\n', '\r', '\f', '\u000B', '\u0085', '\u2028', 'a', '<' };
+        for (int run = 0; run < 5000; run++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            StringBuilder cleaned = new StringBuilder();
+            ItemRowTemplate.appendWithoutBlankLines(cleaned, text);
+            assertEquals(text.toString().replaceAll("(?m)^\\s+$", ""), cleaned.toString());
+        }
+    }
+
+    private Map<String, String> simpleData()
+    {
+        Map<String, String> data = new LinkedHashMap<>();
+        data.put("TEMPLATE_NAME", "Remito");
+        data.put("NOMBRE", "Juan $1 Pérez\\");
+        data.put("DNI", "");
+        data.put("FECHA", null);
+        return data;
+    }
+
+    private List<Map<String, String>> items()
+    {
+        List<Map<String, String>> items = new ArrayList<>();
+        items.add(row("Acme", "X-100", "SN1", "nota"));
+        items.add(row("", "X-200", "SN2", ""));
+        items.add(row("Acme", "  ", "", "  "));
+        items.add(row(null, null, null, null));
+        return items;
+    }
+
+    private Map<String, String> row(String brand, String model, String serial, String note)
+    {
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put("brand", brand);
+        row.put("MODEL", model);
+        row.put("Serial", serial);
+        row.put("NOTE", note);
+        return row;
+    }
+
+    private static void assertSameAsRegex(String body, ItemRowTemplate rows, Map<String, String> row)
+    {
+        StringWriter fast = new StringWriter();
+        try {
+            rows.render(fast, List.of(row), Map.of());
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        assertEquals(body + " " + row, ItemRowTemplate.renderLegacy(body, row), fast.toString());
+    }
+
+    private static List<String> placeholderNames(String body)
+    {
+        List<String> names = new ArrayList<>();
+        Matcher m = Pattern.compile("\\{\\{(\\w+)\\}\\}").matcher(body);
+        while (m.find()) {
+            if (!names.contains(m.group(1))) names.add(m.group(1));
+        }
+        return names;
+    }
+
+    private static Map<String, String> rowOf(String a, String aValue, String b, String bValue)
+    {
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put(a, aValue);
+        if (b != null) row.put(b, bValue);
+        return row;
+    }
+
+    // --- Reference implementation (regex based) ---
+
+    static String legacySimpleFields(String html, Map<String, String> data)
+    {
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            String value = entry.getValue() == null ? "" : entry.getValue();
+            html = html.replaceAll("(?i)\\{\\{" + entry.getKey() + "\\}\\}", Matcher.quoteReplacement(value));
+        }
+        return html;
+    }
+
+    static String legacyRepeatedItems(String html, List<Map<String, String>> items)
+    {
+        Pattern blockPattern = Pattern.compile("(?i)\\{\\{#ITEMS\\}\\}(.*?)\\{\\{/ITEMS\\}\\}", Pattern.DOTALL);
+        Matcher blockMatcher = blockPattern.matcher(html);
+        if (!blockMatcher.find()) return html;
+
+        String itemTemplate = blockMatcher.group(1);
+        StringBuilder allItemsHtml = new StringBuilder();
+        for (Map<String, String> itemData : items) {
+            String rowHtml = itemTemplate;
+            for (Map.Entry<String, String> entry : itemData.entrySet()) {
+                String key = entry.getKey();
+                String value = entry.getValue();
+                if (value == null || value.trim().isEmpty()) {
+                    rowHtml = rowHtml.replaceAll("(?is)<(div|p|span|li)[^>]*>(?:(?!<\\/\\1>).)*?\\{\\{" + key + "\\}\\}.*?<\\/\\1>", "");
+                    rowHtml = rowHtml.replaceAll("(?i)\\{\\{" + key + "\\}\\}", "");
+                } else {
+                    rowHtml = rowHtml.replaceAll("(?i)\\{\\{" + key + "\\}\\}", Matcher.quoteReplacement(value));
+                }
+            }
+            allItemsHtml.append(rowHtml.replaceAll("(?m)^\\s+$", ""));
+        }
+        return html.substring(0, blockMatcher.start()) + allItemsHtml + html.substring(blockMatcher.end());
+    }
+}
@@ -0,0 +1,129 @@
+package com.bunshock.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TemplateCacheTest
+{
+    private Path folder;
+    private final TemplateCache cache = new TemplateCache();
+
+    @Before
+    public void setUp() throws Exception
+    {
+        folder = Files.createTempDirectory("plantillas-");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        cache.stopWatching();
+        try (var files = Files.list(folder)) {
+            for (Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+        }
+        Files.delete(folder);
+    }
+
+    @Test
+    public void withoutWatchingEveryGetChecksTheFile() throws Exception
+    {
+        File template = write("nota.html", "<p>{{A}}</p>", 1_000_000);
+        CompiledTemplate first = cache.get(template);
+        assertSame(first, cache.get(template));
+
+        write("nota.html", "<p>{{B}}</p>", 2_000_000);
+        assertEquals("<p>{{B}}</p>", cache.get(template).getSource());
+    }
+
+    @Test
+    public void watchingServesFromMemoryUntilTheFileChanges() throws Exception
+    {
+        File template = write("nota.html", "<p>{{A}}</p>", 1_000_000);
+        cache.startWatching(1);
+        cache.preload(List.of(template));
+        waitFor(() -> cache.exists(template) && cache.isCached(template));
+
+        // Another station changes the template: picked up in the background
+        write("nota.html", "<p>{{B}}</p>", 2_000_000);
+        waitFor(() -> !cache.isCached(template));
+        assertEquals("<p>{{B}}</p>", cache.get(template).getSource());
+
+        // Deleted: no longer reported as existing
+        Files.delete(template.toPath());
+        waitFor(() -> !cache.exists(template));
+    }
+
+    @Test
+    public void concurrentGetsShareOneCompile() throws Exception
+    {
+        File template = write("nota.html", "<p>{{A}}</p>", 1_000_000);
+        long reads = Metrics.getInstance().timer("template.read").getCount();
+
+        List<CompletableFuture<CompiledTemplate>> gets = new ArrayList<>();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 32; i++) {
+                gets.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return cache.get(template);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, threads));
+            }
+            for (CompletableFuture<CompiledTemplate> get : gets) assertSame(gets.get(0).join(), get.join());
+        } finally {
+            threads.shutdown();
+        }
+        assertEquals(reads + 1, Metrics.getInstance().timer("template.read").getCount());
+    }
+
+    @Test(expected = NoSuchFileException.class)
+    public void failedReadIsNotCached() throws Exception
+    {
+        File template = folder.resolve("falta.html").toFile();
+        try {
+            cache.get(template);
+        } catch (NoSuchFileException e) {
+            assertFalse(cache.isCached(template));
+            throw e;
+        }
+    }
+
+    private File write(String name, String content, long lastModified) throws Exception
+    {
+        Path file = folder.resolve(name);
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+        return file.toFile();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Tiempo de espera agotado", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.bunshock.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.bunshock.model.FieldConfig;
+
+public class ItemRowTest
+{
+    private final ItemRow.Columns columns = new ItemRow.Columns(Arrays.asList(
+        new FieldConfig("CANT", "Cantidad", "TEXT"), new FieldConfig("DESC", "Descripción", "TEXT")));
+
+    @Test
+    public void behavesLikeTheMapItReplaces()
+    {
+        ItemRow row = ItemRow.blank(columns);
+        row.put("CANT", "2");
+        row.put("OTRO", "x"); // Not a column
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("CANT", "2");
+        expected.put("DESC", "");
+        expected.put("OTRO", "x");
+        assertEquals(expected, row);
+        assertEquals(expected, new HashMap<>(row));
+        assertEquals("", row.getOrDefault("FALTA", ""));
+
+        ItemRow sparse = new ItemRow(columns);
+        sparse.put("DESC", "tornillo");
+        assertFalse(sparse.containsKey("CANT"));
+        assertNull(sparse.get("CANT"));
+        assertEquals(1, sparse.size());
+    }
+
+    @Test
+    public void editsUpdateTheCachedPropertyAndEnabledState()
+    {
+        FieldConfig.ConditionConfig condition = new FieldConfig.ConditionConfig();
+        condition.tag = "TIPO";
+        condition.values = Arrays.asList("Producto");
+        FieldConfig cant = new FieldConfig("CANT", "Cantidad", "TEXT");
+        cant.setEnabledIf(condition);
+        ItemRow.Columns columns = new ItemRow.Columns(Arrays.asList(
+            new FieldConfig("TIPO", "Tipo", "TEXT"), cant, new FieldConfig("DESC", "Descripción", "TEXT")));
+
+        ItemRow row = ItemRow.blank(columns);
+        int desc = columns.indexOf("DESC");
+        assertSame(row.property(desc), row.property(desc));
+
+        AtomicInteger changes = new AtomicInteger();
+        row.revisionProperty().addListener((obs, oldValue, newValue) -> changes.incrementAndGet());
+        assertFalse(row.isEnabled("CANT"));
+        assertTrue(row.isEnabled("DESC"));
+
+        row.put("DESC", "arandela");
+        assertEquals("arandela", row.property(desc).get());
+        assertEquals(0, changes.get()); // No rule reads DESC
+
+        row.put("TIPO", "Producto");
+        assertEquals(1, changes.get());
+        assertTrue(row.isEnabled("CANT"));
+    }
+}